@@ -69,7 +69,8 @@ public class ApplicationImpl implements Application {
 
   @Override
   public void shutdown() {
-
+    logger.info("flush the committed state to database");
+    dbManager.getRevokingStore().flush();
   }
 
   @Override
@@ -459,7 +459,8 @@ public class ECKey implements Serializable {
   }
 
   /**
-   * Compute the address of the key that signed the given signature.
+   * Compute the address of the key that signed the given signature. The result is cached, see
+   * {@link SignatureCache}.
    *
    * @param messageHash 32-byte hash of message
    * @param signatureBase64 Base-64 encoded signature
@@ -467,8 +468,13 @@ public class ECKey implements Serializable {
    */
   public static byte[] signatureToAddress(byte[] messageHash, String
       signatureBase64) throws SignatureException {
-    return computeAddress(signatureToKeyBytes(messageHash,
-        signatureBase64));
+    byte[] address = SignatureCache.get(messageHash, signatureBase64);
+    if (address == null) {
+      address = computeAddress(signatureToKeyBytes(messageHash,
+          signatureBase64));
+      SignatureCache.put(messageHash, signatureBase64, address);
+    }
+    return address;
   }
 
   /**
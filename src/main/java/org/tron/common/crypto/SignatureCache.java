@@ -0,0 +1,77 @@
+package org.tron.common.crypto;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Node-wide cache of the addresses recovered from signatures, keyed by message hash and
+ * signature. The same transaction is checked when it is pushed, when it is packed into a block
+ * and again when that block comes back, and key recovery is one of the most expensive operations
+ * of the node.
+ */
+public class SignatureCache {
+
+  private static final int MAX_SIZE = 50_000;
+
+  private static final Cache<Key, byte[]> cache = CacheBuilder.newBuilder()
+      .maximumSize(MAX_SIZE)
+      .recordStats()
+      .build();
+
+  private SignatureCache() {
+  }
+
+  /**
+   * Get the recovered address, null if it isn't cached.
+   */
+  public static byte[] get(byte[] messageHash, String signature) {
+    byte[] address = cache.getIfPresent(new Key(messageHash, signature));
+    return address == null ? null : address.clone();
+  }
+
+  public static void put(byte[] messageHash, String signature, byte[] address) {
+    cache.put(new Key(messageHash.clone(), signature), address.clone());
+  }
+
+  public static long getHitCount() {
+    return cache.stats().hitCount();
+  }
+
+  public static long getMissCount() {
+    return cache.stats().missCount();
+  }
+
+  public static long size() {
+    return cache.size();
+  }
+
+  private static class Key {
+
+    private final byte[] messageHash;
+    private final String signature;
+
+    Key(byte[] messageHash, String signature) {
+      this.messageHash = messageHash;
+      this.signature = signature;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return Arrays.equals(messageHash, key.messageHash) && signature.equals(key.signature);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(Arrays.hashCode(messageHash), signature);
+    }
+  }
+}
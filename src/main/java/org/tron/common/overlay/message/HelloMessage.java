@@ -9,6 +9,7 @@ import org.tron.core.net.message.MessageTypes;
 import org.tron.protos.Discover.Endpoint;
 import org.tron.protos.Protocol;
 import org.tron.protos.Protocol.HelloMessage.Builder;
+import org.tron.protos.Protocol.HelloMessage.Compression;
 
 public class HelloMessage extends P2pMessage {
 
@@ -45,6 +46,9 @@ public class HelloMessage extends P2pMessage {
 
     builder.setFrom(fromEndpoint);
     builder.setVersion(Args.getInstance().getNodeP2pVersion());
+    if (Args.getInstance().isNodeP2pCompression()) {
+      builder.addCompressions(Compression.SNAPPY);
+    }
 
     this.helloMessage = builder.build();
     this.type = MessageTypes.P2P_HELLO.asByte();
@@ -71,6 +75,13 @@ public class HelloMessage extends P2pMessage {
     return this.helloMessage.getVersion();
   }
 
+  /**
+   * Whether the peer can read snappy compressed frames.
+   */
+  public boolean isSnappySupported() {
+    return this.helloMessage.getCompressionsList().contains(Compression.SNAPPY);
+  }
+
   /**
    * Get listen port.
    */
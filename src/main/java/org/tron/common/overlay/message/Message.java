@@ -1,8 +1,7 @@
 package org.tron.common.overlay.message;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
-import org.apache.commons.lang3.ArrayUtils;
+import io.netty.buffer.PooledByteBufAllocator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tron.common.utils.Sha256Hash;
@@ -32,8 +31,18 @@ public abstract class Message {
   }
 
 
-  public ByteBuf getSendData(){
-     return Unpooled.wrappedBuffer(ArrayUtils.add(this.getData(), 0 ,type));
+  /**
+   * Get the type and data in a pooled direct buffer, which is released once written to a channel.
+   */
+  public ByteBuf getSendData() {
+    byte[] data = this.getData();
+    return PooledByteBufAllocator.DEFAULT.directBuffer(data.length + 1)
+        .writeByte(type)
+        .writeBytes(data);
+  }
+
+  public int getSendDataSize() {
+    return this.getData().length + 1;
   }
 
   public Sha256Hash getMessageId() {
@@ -18,14 +18,13 @@
 package org.tron.common.overlay.message;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import java.io.IOException;
 import java.util.List;
-import org.apache.commons.lang3.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.spongycastle.util.encoders.Hex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Scope;
@@ -55,17 +54,15 @@ public class MessageCodec extends ByteToMessageDecoder {
 
   private Message decodeMessage(ChannelHandlerContext ctx, ByteBuf buffer) throws IOException {
 
-    byte[] encoded = new byte[buffer.readableBytes()];
-    buffer.readBytes(encoded);
-    byte code = encoded[0];
-    byte[] payload = ArrayUtils.subarray(encoded, 1, encoded.length);
+    byte code = buffer.readByte();
 
     Message msg;
     try {
-      msg = createMessage(code, payload);
+      msg = createMessage(code, buffer);
     } catch (Exception ex) {
       loggerNet.info("Incorrectly encoded message from: \t{}, dropping peer", channel);
       loggerNet.info(ex.getMessage());
+      buffer.skipBytes(buffer.readableBytes());
       channel.disconnect(ReasonCode.BAD_PROTOCOL);
       return null;
     }
@@ -81,7 +78,7 @@ public class MessageCodec extends ByteToMessageDecoder {
     return msg;
   }
 
-  private Message createMessage(byte code, byte[] payload) {
+  private Message createMessage(byte code, ByteBuf payload) throws IOException {
     if (MessageTypes.inP2pRange(code)) {
       return p2pMessageFactory.create(code, payload);
     }
@@ -91,7 +88,7 @@ public class MessageCodec extends ByteToMessageDecoder {
     }
 
     throw new IllegalArgumentException(
-        "No such message: " + code + " [" + Hex.toHexString(payload) + "]");
+        "No such message: " + code + " [" + ByteBufUtil.hexDump(payload) + "]");
   }
 
 
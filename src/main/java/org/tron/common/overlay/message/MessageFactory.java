@@ -14,10 +14,27 @@
  */
 package org.tron.common.overlay.message;
 
+import io.netty.buffer.ByteBuf;
+import java.io.IOException;
+
 public abstract class MessageFactory {
 
   protected abstract Message create(byte type, byte[] rawData);
 
   protected abstract Message create(byte[] data);
 
+  /**
+   * Create a message from the payload of a received frame, reading it all. The payload is copied
+   * once, the factories override it for the messages they can parse straight from the buffer.
+   */
+  protected Message create(byte type, ByteBuf payload) throws IOException {
+    return create(type, readBytes(payload));
+  }
+
+  protected static byte[] readBytes(ByteBuf payload) {
+    byte[] rawData = new byte[payload.readableBytes()];
+    payload.readBytes(rawData);
+    return rawData;
+  }
+
 }
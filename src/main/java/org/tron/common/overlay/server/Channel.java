@@ -34,6 +34,7 @@ import org.tron.common.overlay.message.HelloMessage;
 import org.tron.common.overlay.message.MessageCodec;
 import org.tron.common.overlay.message.ReasonCode;
 import org.tron.common.overlay.message.StaticMessages;
+import org.tron.core.config.args.Args;
 import org.tron.core.db.ByteArrayWrapper;
 import org.tron.core.net.peer.PeerConnectionDelegate;
 import org.tron.core.net.peer.TronHandler;
@@ -134,6 +135,10 @@ public class Channel {
   public void publicHandshakeFinished(ChannelHandlerContext ctx, HelloMessage helloRemote)
       throws IOException, InterruptedException {
     //nodeStatistics.setClientId(helloRemote.getClientID); TODO:use clientID
+    if (Args.getInstance().isNodeP2pCompression() && helloRemote.isSnappySupported()) {
+      ctx.pipeline().addLast("frameCompression", new FrameCompressionCodec(
+          Args.getInstance().getNodeP2pCompressionThreshold(), stats));
+    }
     ctx.pipeline().addLast("messageCodec", messageCodec);
     ctx.pipeline().addLast("p2p", p2pHandler);
     ctx.pipeline().addLast("data", tronHandler);
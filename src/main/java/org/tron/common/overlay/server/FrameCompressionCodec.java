@@ -0,0 +1,109 @@
+package org.tron.common.overlay.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.handler.codec.compression.Snappy;
+import java.net.SocketAddress;
+import java.util.List;
+import org.tron.common.overlay.server.WireTrafficStats.CompressionStats;
+import org.tron.core.config.Parameter.NetConstants;
+
+/**
+ * Snappy compression of the frames between the length framing and the message codec, added once
+ * both peers advertised it in their hello. Each frame starts with a flag telling whether the rest
+ * is compressed; frames under the threshold, or which don't shrink, are sent as they are.
+ */
+public class FrameCompressionCodec extends MessageToMessageCodec<ByteBuf, ByteBuf> {
+
+  static final byte RAW = 0;
+  static final byte SNAPPY = 1;
+
+  private final int threshold;
+  private final WireTrafficStats trafficStats;
+  private SocketAddress address;
+  private CompressionStats stats;
+
+  public FrameCompressionCodec(int threshold, WireTrafficStats trafficStats) {
+    this.threshold = threshold;
+    this.trafficStats = trafficStats;
+  }
+
+  @Override
+  public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+    address = ctx.channel().remoteAddress();
+    stats = trafficStats.addCompression(address);
+  }
+
+  @Override
+  public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+    trafficStats.removeCompression(address);
+  }
+
+  @Override
+  protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) {
+    int length = msg.readableBytes();
+    if (length >= threshold) {
+      ByteBuf compressed = ctx.alloc().buffer(length / 2 + 16);
+      compressed.writeByte(SNAPPY);
+      new Snappy().encode(msg.duplicate(), compressed, length);
+      if (compressed.readableBytes() <= length) {
+        stats.add(length, compressed.readableBytes());
+        out.add(compressed);
+        return;
+      }
+      compressed.release();
+    }
+
+    ByteBuf flag = ctx.alloc().buffer(1).writeByte(RAW);
+    out.add(ctx.alloc().compositeBuffer(2).addComponents(true, flag, msg.retain()));
+    stats.add(length, length + 1);
+  }
+
+  @Override
+  protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) {
+    int wireLength = msg.readableBytes();
+    byte flag = msg.readByte();
+    if (flag == RAW) {
+      out.add(msg.retain());
+      stats.add(wireLength - 1, wireLength);
+    } else if (flag == SNAPPY) {
+      // Snappy allocates whatever length the peer declares, so check it first and cap the buffer
+      int length = peekPreamble(msg);
+      if (length < 0 || length > NetConstants.MAX_MESSAGE_SIZE) {
+        throw new CorruptedFrameException("compressed frame too large: " + length);
+      }
+      ByteBuf decompressed = ctx.alloc().buffer(length, length);
+      try {
+        new Snappy().decode(msg, decompressed);
+        if (decompressed.readableBytes() != length) {
+          throw new CorruptedFrameException("compressed frame decoded to "
+              + decompressed.readableBytes() + " bytes instead of " + length);
+        }
+      } catch (RuntimeException e) {
+        decompressed.release();
+        throw e;
+      }
+      out.add(decompressed);
+      stats.add(decompressed.readableBytes(), wireLength);
+    } else {
+      throw new CorruptedFrameException("unknown frame compression " + flag);
+    }
+  }
+
+  /**
+   * Read the uncompressed length in front of the Snappy data without consuming it.
+   */
+  private static int peekPreamble(ByteBuf in) {
+    int length = 0;
+    for (int i = 0; i < 5 && i < in.readableBytes(); i++) {
+      int b = in.getUnsignedByte(in.readerIndex() + i);
+      length |= (b & 0x7f) << (7 * i);
+      if ((b & 0x80) == 0) {
+        return length;
+      }
+    }
+    throw new CorruptedFrameException("invalid compressed frame preamble");
+  }
+}
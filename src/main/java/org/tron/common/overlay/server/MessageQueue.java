@@ -27,7 +27,7 @@ import org.tron.common.overlay.message.*;
 
 import java.util.Queue;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This class contains the logic for sending messages in a queue
@@ -42,6 +42,12 @@ import java.util.concurrent.atomic.AtomicInteger;
  * The following messages will not be answered:
  *      PONG, PEERS, HELLO, STATUS, TRANSACTIONS, BLOCKS
  *
+ * The queue is drained on the event loop of the channel when a message is queued, a request is
+ * answered or the channel becomes writable again. Every queued response and the next request are
+ * written while the channel is writable and flushed together, the rest waits for the channel to
+ * drain. A request is sent once the previous one is answered and the channel is closed if it isn't
+ * answered in time.
+ *
  * @author Roman Mandeleil
  */
 @Component
@@ -50,22 +56,19 @@ public class MessageQueue {
 
   private static final Logger logger = LoggerFactory.getLogger("MessageQueue");
 
-  private static final ScheduledExecutorService timer = Executors.newScheduledThreadPool(4, new ThreadFactory() {
-    private AtomicInteger cnt = new AtomicInteger(0);
-
-    public Thread newThread(Runnable r) {
-      return new Thread(r, "MessageQueueTimer-" + cnt.getAndIncrement());
-    }
-  });
+  private static final long REQUEST_TIMEOUT = 20000;
 
   private Queue<MessageRoundtrip> requestQueue = new ConcurrentLinkedQueue<>();
   private Queue<MessageRoundtrip> respondQueue = new ConcurrentLinkedQueue<>();
-  private ChannelHandlerContext ctx = null;
+  private volatile ChannelHandlerContext ctx = null;
 
 //  @Autowired
 //  EthereumListener ethereumListener;
-  boolean hasPing = false;
-  private ScheduledFuture<?> timerTask;
+  volatile boolean hasPing = false;
+  // a drain is pending on the event loop, further sends are written by it
+  private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+  private volatile boolean closed = false;
+  private volatile ScheduledFuture<?> timeoutTask;
   private Channel channel;
 
   public MessageQueue() {
@@ -73,13 +76,7 @@ public class MessageQueue {
 
   public void activate(ChannelHandlerContext ctx) {
     this.ctx = ctx;
-    timerTask = timer.scheduleAtFixedRate(() -> {
-      try {
-        nudgeQueue();
-      } catch (Throwable t) {
-        logger.error("Unhandled exception", t);
-      }
-    }, 10, 10, TimeUnit.MILLISECONDS);
+    scheduleDrain();
   }
 
   public void setChannel(Channel channel) {
@@ -96,6 +93,8 @@ public class MessageQueue {
       requestQueue.add(new MessageRoundtrip(msg));
     else
       respondQueue.add(new MessageRoundtrip(msg));
+
+    scheduleDrain();
   }
 
   public void disconnect() {
@@ -113,7 +112,7 @@ public class MessageQueue {
 
   public void receivedMessage(Message msg) throws InterruptedException {
 
-    logger.info("rcv from peer[{}], size:{} data:{}", ctx.channel().remoteAddress(), msg.getSendData().readableBytes(), msg.toString());
+    logger.info("rcv from peer[{}], size:{} data:{}", ctx.channel().remoteAddress(), msg.getSendDataSize(), msg.toString());
 
     if (requestQueue.peek() != null) {
       MessageRoundtrip messageRoundtrip = requestQueue.peek();
@@ -125,56 +124,99 @@ public class MessageQueue {
           && msg.getClass() == waitingMessage.getAnswerMessage()) {
         messageRoundtrip.answer();
         channel.getPeerStats().pong(messageRoundtrip.lastTimestamp);
+        // the next request can go
+        scheduleDrain();
       }
     }
   }
 
-  private void removeAnsweredMessage(MessageRoundtrip messageRoundtrip) {
-    if (messageRoundtrip != null && messageRoundtrip.isAnswered()) 
-      requestQueue.remove();
+  /**
+   * Write what was held back once the channel is writable again.
+   */
+  public void channelWritable() {
+    scheduleDrain();
   }
 
-  private void nudgeQueue() {
-    // remove last answered message on the queue
-    removeAnsweredMessage(requestQueue.peek());
-    // Now send the next message
-    sendToWire(respondQueue.poll());
-    sendToWire(requestQueue.peek());
+  private void scheduleDrain() {
+    ChannelHandlerContext ctx = this.ctx;
+    if (ctx == null || closed || !drainScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    ctx.executor().execute(() -> {
+      drainScheduled.set(false);
+      try {
+        drain();
+      } catch (Throwable t) {
+        logger.error("Unhandled exception", t);
+      }
+    });
   }
 
-  private void sendToWire(MessageRoundtrip messageRoundtrip) {
+  private void removeAnsweredMessage(MessageRoundtrip messageRoundtrip) {
+    if (messageRoundtrip != null && messageRoundtrip.isAnswered()) {
+      requestQueue.remove();
+      cancelTimeout();
+    }
+  }
 
-    if (messageRoundtrip == null){
+  private void drain() {
+    if (closed) {
       return;
     }
 
-    if (messageRoundtrip.getRetryTimes() > 0 && !messageRoundtrip.hasToRetry()){
-      return;
+    // remove last answered message on the queue
+    removeAnsweredMessage(requestQueue.peek());
+
+    boolean written = false;
+    while (ctx.channel().isWritable() && !respondQueue.isEmpty()) {
+      sendToWire(respondQueue.poll());
+      written = true;
+    }
+    MessageRoundtrip request = requestQueue.peek();
+    if (ctx.channel().isWritable() && request != null && request.getRetryTimes() == 0) {
+      sendToWire(request);
+      written = true;
     }
 
-    if (messageRoundtrip.getRetryTimes() > 0){
-      logger.info("send msg timeout. close channel {}.", ctx.channel().remoteAddress());
-      ctx.close();
-      return;
+    if (written) {
+      ctx.flush();
     }
+  }
 
+  private void sendToWire(MessageRoundtrip messageRoundtrip) {
     Message msg = messageRoundtrip.getMsg();
 
-    ctx.writeAndFlush(msg.getSendData())
+    ctx.write(msg.getSendData())
             .addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
 
     if (msg.getAnswerMessage() != null) {
       messageRoundtrip.incRetryTimes();
       messageRoundtrip.saveTime();
+      timeoutTask = ctx.executor().schedule(() -> checkTimeout(messageRoundtrip),
+          REQUEST_TIMEOUT, TimeUnit.MILLISECONDS);
     }
 
     logger.info("send to peer[{}] retry[{}], length:{} data:{}", ctx.channel().remoteAddress(),
-            messageRoundtrip.getRetryTimes(), msg.getSendData().readableBytes(), msg.toString());
+            messageRoundtrip.getRetryTimes(), msg.getSendDataSize(), msg.toString());
   }
 
-  public void close() {
-    if (!timerTask.isCancelled()) {
-      timerTask.cancel(false);
+  private void checkTimeout(MessageRoundtrip messageRoundtrip) {
+    if (!closed && !messageRoundtrip.isAnswered() && requestQueue.peek() == messageRoundtrip) {
+      logger.info("send msg timeout. close channel {}.", ctx.channel().remoteAddress());
+      ctx.close();
+    }
+  }
+
+  private void cancelTimeout() {
+    ScheduledFuture<?> task = timeoutTask;
+    if (task != null) {
+      task.cancel(false);
+      timeoutTask = null;
     }
   }
+
+  public void close() {
+    closed = true;
+    cancelTimeout();
+  }
 }
@@ -86,6 +86,14 @@ public class P2pHandler extends SimpleChannelInboundHandler<P2pMessage> {
     }
   }
 
+  @Override
+  public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+    if (ctx.channel().isWritable()) {
+      msgQueue.channelWritable();
+    }
+    ctx.fireChannelWritabilityChanged();
+  }
+
   @Override
   public void channelInactive(ChannelHandlerContext ctx) throws Exception {
     logger.info("channel inactive {}", ctx.channel().remoteAddress());
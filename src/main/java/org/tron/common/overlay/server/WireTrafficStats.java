@@ -29,6 +29,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PreDestroy;
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -44,6 +47,7 @@ public class WireTrafficStats  implements Runnable  {
     private ScheduledExecutorService executor;
     public final TrafficStatHandler tcp = new TrafficStatHandler();
     public final TrafficStatHandler udp = new TrafficStatHandler();
+    private final Map<SocketAddress, CompressionStats> compression = new ConcurrentHashMap<>();
 
     public WireTrafficStats() {
         executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("WireTrafficStats-%d").build());
@@ -51,13 +55,49 @@ public class WireTrafficStats  implements Runnable  {
     }
 
     @Override
-    public void run() {}
+    public void run() {
+        compression.forEach((address, stats) ->
+            logger.debug("{} compression saved {} bytes", address, stats.getBytesSaved()));
+    }
+
+    /**
+     * Get the bytes the frame compression saved with a peer, 0 if it isn't compressed.
+     */
+    public long getBytesSaved(SocketAddress address) {
+        CompressionStats stats = compression.get(address);
+        return stats == null ? 0 : stats.getBytesSaved();
+    }
+
+    CompressionStats addCompression(SocketAddress address) {
+        CompressionStats stats = new CompressionStats();
+        compression.put(address, stats);
+        return stats;
+    }
+
+    void removeCompression(SocketAddress address) {
+        compression.remove(address);
+    }
 
     @PreDestroy
     public void close() {
         executor.shutdownNow();
     }
 
+    static class CompressionStats {
+        // message bytes before compression and frame bytes on the wire
+        final AtomicLong rawSize = new AtomicLong();
+        final AtomicLong wireSize = new AtomicLong();
+
+        void add(long raw, long wire) {
+            rawSize.addAndGet(raw);
+            wireSize.addAndGet(wire);
+        }
+
+        long getBytesSaved() {
+            return rawSize.get() - wireSize.get();
+        }
+    }
+
     @ChannelHandler.Sharable
     static class TrafficStatHandler extends ChannelDuplexHandler {
         long outSizeTot;
@@ -17,7 +17,10 @@
  */
 package org.tron.common.storage;
 
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.stream.Stream;
+import org.tron.common.utils.ByteUtil;
 
 
 public interface DbSourceInter<V> extends BatchSourceInter<byte[], V> {
@@ -42,4 +45,18 @@ public interface DbSourceInter<V> extends BatchSourceInter<byte[], V> {
 
   long getTotal() throws RuntimeException;
 
+  /**
+   * Iterate lazily, in key order, over the entries whose key is in [from, to), a null bound being
+   * unbounded. The stream holds a database iterator, so it has to be closed by the thread which
+   * opened it.
+   */
+  Stream<Entry<byte[], V>> stream(byte[] from, byte[] to);
+
+  /**
+   * Iterate lazily, in key order, over the entries whose key starts with the prefix.
+   */
+  default Stream<Entry<byte[], V>> prefixStream(byte[] prefix) {
+    return stream(prefix, ByteUtil.prefixUpperBound(prefix));
+  }
+
 }
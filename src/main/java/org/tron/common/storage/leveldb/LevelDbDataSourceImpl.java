@@ -22,20 +22,28 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.iq80.leveldb.CompressionType;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBException;
 import org.iq80.leveldb.DBIterator;
 import org.iq80.leveldb.Options;
 import org.iq80.leveldb.WriteBatch;
 import org.tron.common.storage.DbSourceInter;
+import org.tron.common.utils.FastByteComparisons;
 import org.tron.common.utils.FileUtil;
 import org.tron.core.config.args.Args;
 
@@ -43,6 +51,12 @@ import org.tron.core.config.args.Args;
 @NoArgsConstructor
 public class LevelDbDataSourceImpl implements DbSourceInter<byte[]> {
 
+  /**
+   * Key of the last snapshot flush a database got, written with the rows of the flush. It isn't
+   * a row of any store, so iterations and counts skip it.
+   */
+  public static final byte[] SEQUENCE_KEY = "\0snapshot_sequence".getBytes();
+
   String dataBaseName;
   DB database;
   boolean alive;
@@ -103,16 +117,7 @@ public class LevelDbDataSourceImpl implements DbSourceInter<byte[]> {
   }
 
   private Options createDbOptions() {
-    Options dbOptions = new Options();
-    dbOptions.createIfMissing(true);
-    dbOptions.compressionType(CompressionType.NONE);
-    dbOptions.blockSize(10 * 1024 * 1024);
-    dbOptions.writeBufferSize(10 * 1024 * 1024);
-    dbOptions.cacheSize(0);
-    dbOptions.paranoidChecks(true);
-    dbOptions.verifyChecksums(true);
-    dbOptions.maxOpenFiles(32);
-    return dbOptions;
+    return Args.getInstance().getStorage().newDbOptions(dataBaseName);
   }
 
   private Path getDbPath() {
@@ -196,34 +201,72 @@ public class LevelDbDataSourceImpl implements DbSourceInter<byte[]> {
 
   @Override
   public Set<byte[]> allKeys() {
-    resetDbLock.readLock().lock();
-    try (DBIterator iterator = database.iterator()) {
-      Set<byte[]> result = new HashSet<>();
-      for (iterator.seekToFirst(); iterator.hasNext(); iterator.next()) {
-        result.add(iterator.peekNext().getKey());
-      }
-      return result;
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    } finally {
-      resetDbLock.readLock().unlock();
+    try (Stream<Entry<byte[], byte[]>> entries = stream(null, null)) {
+      return entries.map(Entry::getKey).collect(Collectors.toSet());
     }
   }
 
   @Override
   public Set<byte[]> allValues() {
+    try (Stream<Entry<byte[], byte[]>> entries = stream(null, null)) {
+      return entries.map(Entry::getValue).collect(Collectors.toSet());
+    }
+  }
+
+  /**
+   * The read lock is held until the stream is closed, so the database can't be closed or reset
+   * under the iterator.
+   */
+  @Override
+  public Stream<Entry<byte[], byte[]>> stream(byte[] from, byte[] to) {
     resetDbLock.readLock().lock();
-    try (DBIterator iterator = database.iterator()) {
-      Set<byte[]> result = new HashSet<>();
-      for (iterator.seekToFirst(); iterator.hasNext(); iterator.next()) {
-        result.add(iterator.peekNext().getValue());
+    DBIterator iterator;
+    try {
+      iterator = database.iterator();
+      if (from == null) {
+        iterator.seekToFirst();
+      } else {
+        iterator.seek(from);
       }
-      return result;
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    } finally {
+    } catch (RuntimeException e) {
       resetDbLock.readLock().unlock();
+      throw e;
     }
+
+    Iterator<Entry<byte[], byte[]>> bounded = new Iterator<Entry<byte[], byte[]>>() {
+      @Override
+      public boolean hasNext() {
+        while (iterator.hasNext() && Arrays.equals(iterator.peekNext().getKey(), SEQUENCE_KEY)) {
+          iterator.next();
+        }
+        if (!iterator.hasNext()) {
+          return false;
+        }
+        byte[] key = iterator.peekNext().getKey();
+        return to == null
+            || FastByteComparisons.compareTo(key, 0, key.length, to, 0, to.length) < 0;
+      }
+
+      @Override
+      public Entry<byte[], byte[]> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return iterator.next();
+      }
+    };
+
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(bounded,
+        Spliterator.ORDERED | Spliterator.NONNULL), false)
+        .onClose(() -> {
+          try {
+            iterator.close();
+          } catch (IOException e) {
+            throw new RuntimeException(e);
+          } finally {
+            resetDbLock.readLock().unlock();
+          }
+        });
   }
 
   @Override
@@ -231,8 +274,10 @@ public class LevelDbDataSourceImpl implements DbSourceInter<byte[]> {
     resetDbLock.readLock().lock();
     try (DBIterator iterator = database.iterator()) {
       long total = 0;
-      for (iterator.seekToFirst(); iterator.hasNext(); iterator.next()) {
-        total++;
+      for (iterator.seekToFirst(); iterator.hasNext(); ) {
+        if (!Arrays.equals(iterator.next().getKey(), SEQUENCE_KEY)) {
+          total++;
+        }
       }
       return total;
     } catch (IOException e) {
@@ -72,6 +72,21 @@ public class ByteUtil {
     return data;
   }
 
+  /**
+   * The smallest key greater than every key starting with the prefix, in unsigned lexicographic
+   * order, or null if there is no such key.
+   */
+  public static byte[] prefixUpperBound(byte[] prefix) {
+    for (int i = prefix.length - 1; i >= 0; i--) {
+      if (prefix[i] != (byte) 0xff) {
+        byte[] bound = Arrays.copyOf(prefix, i + 1);
+        bound[i]++;
+        return bound;
+      }
+    }
+    return null;
+  }
+
   /**
    * merge arrays.
    * @param arrays - arrays to merge
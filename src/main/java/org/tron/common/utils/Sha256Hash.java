@@ -27,6 +27,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
@@ -87,6 +88,19 @@ public class Sha256Hash implements Serializable, Comparable<Sha256Hash> {
     return wrap(hash(contents));
   }
 
+  /**
+   * Creates a new instance containing the calculated (one-time) hash of the remaining bytes of the
+   * given buffer, leaving its position unchanged.
+   *
+   * @param contents the buffer on which the hash value is calculated
+   * @return a new instance containing the calculated (one-time) hash
+   */
+  public static Sha256Hash of(ByteBuffer contents) {
+    MessageDigest digest = newDigest();
+    digest.update(contents.duplicate());
+    return wrap(digest.digest());
+  }
+
   /**
    * Creates a new instance containing the calculated (one-time) hash of the given file's contents.
    * The file contents are read fully into memory, so this method should only be used with small
@@ -19,7 +19,10 @@
 package org.tron.core;
 
 import com.google.protobuf.ByteString;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.tron.api.GrpcAPI.AccountList;
@@ -40,6 +43,7 @@ import org.tron.core.capsule.WitnessCapsule;
 import org.tron.core.db.AccountStore;
 import org.tron.core.db.BlockStore;
 import org.tron.core.db.Manager;
+import org.tron.core.db.TransactionHistoryStore;
 import org.tron.core.db.UtxoStore;
 import org.tron.core.exception.ContractExeException;
 import org.tron.core.exception.ContractValidateException;
@@ -62,6 +66,9 @@ import org.tron.protos.Protocol.Transaction;
 @Slf4j
 public class Wallet {
 
+  private static final long ASSET_ISSUE_PAGE_LIMIT = 1000;
+  private static final long TRANSACTION_PAGE_LIMIT = 1000;
+
   private BlockStore db;
   @Getter
   private final ECKey ecKey;
@@ -284,18 +291,43 @@ public class Wallet {
     return builder.build();
   }
 
+  /**
+   * Get a page of the asset issues, in name order.
+   */
+  public AssetIssueList getAssetIssueList(long offset, long limit) {
+    if (offset < 0 || limit <= 0) {
+      return null;
+    }
+    AssetIssueList.Builder builder = AssetIssueList.newBuilder();
+    dbManager.getAssetIssueStore().getAssetIssues(offset, Math.min(limit, ASSET_ISSUE_PAGE_LIMIT))
+        .forEach(issueCapsule -> builder.addAssetIssue(issueCapsule.getInstance()));
+    return builder.build();
+  }
+
   public AssetIssueList getAssetIssueByAccount(ByteString accountAddress) {
     if (accountAddress == null || accountAddress.size() == 0) {
       return null;
     }
-    List<AssetIssueCapsule> assetIssueCapsuleList = dbManager.getAssetIssueStore()
-        .getAllAssetIssues();
+    return getAssetIssueByOwner(accountAddress, 0, Long.MAX_VALUE);
+  }
+
+  /**
+   * Get a page of the asset issues of an account, in name order.
+   */
+  public AssetIssueList getAssetIssueByAccount(ByteString accountAddress, long offset,
+      long limit) {
+    if (accountAddress == null || accountAddress.size() == 0 || offset < 0 || limit <= 0) {
+      return null;
+    }
+    return getAssetIssueByOwner(accountAddress, offset, Math.min(limit, ASSET_ISSUE_PAGE_LIMIT));
+  }
+
+  private AssetIssueList getAssetIssueByOwner(ByteString ownerAddress, long offset, long limit) {
     AssetIssueList.Builder builder = AssetIssueList.newBuilder();
-    assetIssueCapsuleList.stream()
-        .filter(assetIssueCapsule -> assetIssueCapsule.getOwnerAddress().equals(accountAddress))
-        .forEach(issueCapsule -> {
-          builder.addAssetIssue(issueCapsule.getInstance());
-        });
+    dbManager.getAssetIssueIndexStore().getAssetIssueNames(ownerAddress, offset, limit).stream()
+        .map(name -> dbManager.getAssetIssueStore().get(name.toByteArray()))
+        .filter(Objects::nonNull)
+        .forEach(issueCapsule -> builder.addAssetIssue(issueCapsule.getInstance()));
     return builder.build();
   }
 
@@ -303,19 +335,33 @@ public class Wallet {
     if (assetName == null || assetName.size() == 0) {
       return null;
     }
-    List<AssetIssueCapsule> assetIssueCapsuleList = dbManager.getAssetIssueStore()
-        .getAllAssetIssues();
-    for (AssetIssueCapsule assetIssueCapsule : assetIssueCapsuleList) {
-      if (assetName.equals(assetIssueCapsule.getName())) {
-        return assetIssueCapsule.getInstance();
-      }
+    AssetIssueCapsule assetIssueCapsule = dbManager.getAssetIssueStore()
+        .get(assetName.toByteArray());
+    return assetIssueCapsule != null ? assetIssueCapsule.getInstance() : null;
+  }
+
+  /**
+   * Get a page of the transactions which touched an account, in chain order. It is empty unless
+   * the transaction history is enabled.
+   */
+  public List<Transaction> getTransactionsByAccount(ByteString accountAddress, long offset,
+      long limit) {
+    TransactionHistoryStore transactionHistoryStore = dbManager.getTransactionHistoryStore();
+    if (transactionHistoryStore == null || accountAddress == null || accountAddress.size() == 0
+        || offset < 0 || limit <= 0) {
+      return Collections.emptyList();
     }
-    return null;
+    return transactionHistoryStore.getTransactionIds(accountAddress.toByteArray(), offset,
+        Math.min(limit, TRANSACTION_PAGE_LIMIT)).stream()
+        .map(trxId -> dbManager.getTransactionStore().get(trxId.getBytes()))
+        .filter(Objects::nonNull)
+        .map(TransactionCapsule::getInstance)
+        .collect(Collectors.toList());
   }
 
   public NumberMessage totalTransaction() {
     Builder builder = NumberMessage.newBuilder()
-        .setNum(dbManager.getTransactionStore().getTotalTransactions());
+        .setNum(dbManager.getDynamicPropertiesStore().getTotalTransactionCount());
     return builder.build();
   }
 }
@@ -55,6 +55,7 @@ public class AssetIssueActuator extends AbstractActuator {
       AssetIssueCapsule assetIssueCapsule = new AssetIssueCapsule(assetIssueContract);
       dbManager.getAssetIssueStore()
           .put(assetIssueCapsule.getName().toByteArray(), assetIssueCapsule);
+      dbManager.getAssetIssueIndexStore().put(assetIssueCapsule);
 
       dbManager.adjustBalance(assetIssueContract.getOwnerAddress().toByteArray(), -calcFee());
       ret.setStatus(fee, code.SUCESS);
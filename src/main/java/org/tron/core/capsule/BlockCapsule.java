@@ -19,6 +19,7 @@ import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 import java.security.SignatureException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Vector;
 import java.util.stream.Collectors;
@@ -28,6 +29,7 @@ import org.tron.common.crypto.ECKey;
 import org.tron.common.crypto.ECKey.ECDSASignature;
 import org.tron.common.utils.Sha256Hash;
 import org.tron.core.capsule.utils.MerkleTree;
+import org.tron.core.capsule.utils.SignatureVerifier;
 import org.tron.core.exception.ValidateSignatureException;
 import org.tron.protos.Protocol.Block;
 import org.tron.protos.Protocol.BlockHeader;
@@ -112,10 +114,16 @@ public class BlockCapsule implements ProtoCapsule<Block> {
 
   private Block block;
 
+  // the capsules of the transactions, kept so that they can cache what they computed
+  private List<TransactionCapsule> transactions;
+
   private boolean unpacked;
 
   public boolean generatedByMyself = false;
 
+  // the signatures and the merkle root were checked, and the block hasn't changed since
+  private volatile boolean verified = false;
+
   private synchronized void unPack() {
     if (unpacked) {
       return;
@@ -170,14 +178,25 @@ public class BlockCapsule implements ProtoCapsule<Block> {
     unpacked = true;
   }
 
-  public void addTransaction(TransactionCapsule pendingTrx) {
+  public synchronized void addTransaction(TransactionCapsule pendingTrx) {
     this.block = this.block.toBuilder().addTransactions(pendingTrx.getInstance()).build();
+    if (transactions != null) {
+      transactions.add(pendingTrx);
+    }
+    this.verified = false;
   }
 
-  public List<TransactionCapsule> getTransactions() {
-    return this.block.getTransactionsList().stream()
-        .map(trx -> new TransactionCapsule(trx))
-        .collect(Collectors.toList());
+  /**
+   * Get the transactions, the same capsules on every call.
+   */
+  public synchronized List<TransactionCapsule> getTransactions() {
+    unPack();
+    if (transactions == null) {
+      transactions = this.block.getTransactionsList().stream()
+          .map(trx -> new TransactionCapsule(trx))
+          .collect(Collectors.toList());
+    }
+    return Collections.unmodifiableList(transactions);
   }
 
   public void sign(byte[] privateKey) {
@@ -190,6 +209,7 @@ public class BlockCapsule implements ProtoCapsule<Block> {
         .build();
 
     this.block = this.block.toBuilder().setBlockHeader(blockHeader).build();
+    this.verified = false;
   }
 
   private Sha256Hash getRawHash() {
@@ -222,14 +242,13 @@ public class BlockCapsule implements ProtoCapsule<Block> {
   }
 
   public Sha256Hash calcMerkleRoot() {
-    List<Transaction> transactionsList = this.block.getTransactionsList();
+    List<TransactionCapsule> transactionsList = getTransactions();
 
     if (CollectionUtils.isEmpty(transactionsList)) {
       return Sha256Hash.ZERO_HASH;
     }
 
     Vector<Sha256Hash> ids = transactionsList.stream()
-        .map(TransactionCapsule::new)
         .map(TransactionCapsule::getHash)
         .collect(Collectors.toCollection(Vector::new));
 
@@ -243,6 +262,27 @@ public class BlockCapsule implements ProtoCapsule<Block> {
 
     this.block = this.block.toBuilder().setBlockHeader(
         this.block.getBlockHeader().toBuilder().setRawData(blockHeaderRaw)).build();
+    this.verified = false;
+  }
+
+  /**
+   * Check what doesn't depend on the state: the witness signature, the merkle root and the
+   * transaction signatures. A success is remembered, so this can run ahead of pushBlock.
+   */
+  public boolean preValidate() throws ValidateSignatureException {
+    if (verified) {
+      return true;
+    }
+    if (!validateSignature() || !calcMerkleRoot().equals(getMerkleRoot())) {
+      return false;
+    }
+    SignatureVerifier.verify(getTransactions());
+    verified = true;
+    return true;
+  }
+
+  public boolean isVerified() {
+    return verified;
   }
 
   public Sha256Hash getMerkleRoot() {
@@ -27,7 +27,9 @@ import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 import java.security.SignatureException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.tron.common.crypto.ECKey;
 import org.tron.common.crypto.ECKey.ECDSASignature;
@@ -49,6 +51,14 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
 
   private Transaction transaction;
 
+  // the signatures were checked, and the transaction hasn't changed since
+  private volatile boolean verified = false;
+
+  // computed on first use, only signing changes the transaction afterwards
+  private volatile Sha256Hash id;
+  private volatile Sha256Hash rawHash;
+  private volatile List<byte[]> owners;
+
   /**
    * constructor TransactionCapsule.
    */
@@ -197,12 +207,27 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
   }
 
   public Sha256Hash getHash() {
-    byte[] transBytes = this.transaction.toByteArray();
-    return Sha256Hash.of(transBytes);
+    return getTransactionId();
   }
 
   public Sha256Hash getRawHash() {
-    return Sha256Hash.of(this.transaction.getRawData().toByteArray());
+    if (rawHash == null) {
+      rawHash = Sha256Hash.of(this.transaction.getRawData().toByteArray());
+    }
+    return rawHash;
+  }
+
+  /**
+   * Get the owner address of every contract, null for the contract types without owner.
+   */
+  public List<byte[]> getOwners() {
+    if (owners == null) {
+      owners = Collections.unmodifiableList(this.transaction.getRawData().getContractList()
+          .stream()
+          .map(TransactionCapsule::getOwner)
+          .collect(Collectors.toList()));
+    }
+    return owners;
   }
 
   /**
@@ -237,6 +262,8 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
     ECDSASignature signature = ecKey.sign(getRawHash().getBytes());
     ByteString sig = ByteString.copyFrom(signature.toBase64().getBytes());
     this.transaction = this.transaction.toBuilder().addSignature(sig).build();
+    this.id = null;
+    this.verified = false;
   }
 
   // todo mv this static function to capsule util
@@ -284,6 +311,33 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
     }
   }
 
+  /**
+   * Get the recipient address of a contract, null for the contract types without recipient.
+   */
+  public static byte[] getToAddress(Transaction.Contract contract) {
+    ByteString to;
+    try {
+      Any contractParameter = contract.getParameter();
+      switch (contract.getType()) {
+        case TransferContract:
+          to = contractParameter.unpack(TransferContract.class).getToAddress();
+          break;
+        case TransferAssetContract:
+          to = contractParameter.unpack(TransferAssetContract.class).getToAddress();
+          break;
+        case ParticipateAssetIssueContract:
+          to = contractParameter.unpack(ParticipateAssetIssueContract.class).getToAddress();
+          break;
+        default:
+          return null;
+      }
+      return to.toByteArray();
+    } catch (InvalidProtocolBufferException e) {
+      logger.debug(e.getMessage(), e);
+      return null;
+    }
+  }
+
   public static String getBase64FromByteString(ByteString sign) {
     byte[] r = sign.substring(0, 32).toByteArray();
     byte[] s = sign.substring(32, 64).toByteArray();
@@ -300,16 +354,19 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
    * validate signature
    */
   public boolean validateSignature() throws ValidateSignatureException {
+    if (verified) {
+      return true;
+    }
+
     if (this.getInstance().getSignatureCount() !=
         this.getInstance().getRawData().getContractCount()) {
       throw new ValidateSignatureException("miss sig or contract");
     }
 
-    List<Transaction.Contract> listContract = this.transaction.getRawData().getContractList();
+    List<byte[]> owners = getOwners();
     for (int i = 0; i < this.transaction.getSignatureCount(); ++i) {
       try {
-        Transaction.Contract contract = listContract.get(i);
-        byte[] owner = getOwner(contract);
+        byte[] owner = owners.get(i);
         byte[] address = ECKey.signatureToAddress(getRawHash().getBytes(),
             getBase64FromByteString(this.transaction.getSignature(i)));
         if (!Arrays.equals(owner, address)) {
@@ -319,12 +376,16 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
         throw new ValidateSignatureException(e.getMessage());
       }
     }
+    verified = true;
     return true;
   }
 
 
   public Sha256Hash getTransactionId() {
-    return Sha256Hash.of(this.transaction.toByteArray());
+    if (id == null) {
+      id = Sha256Hash.of(this.transaction.toByteArray());
+    }
+    return id;
   }
 
   @Override
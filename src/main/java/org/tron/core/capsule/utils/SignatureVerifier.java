@@ -0,0 +1,80 @@
+package org.tron.core.capsule.utils;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.core.capsule.TransactionCapsule;
+import org.tron.core.exception.ValidateSignatureException;
+
+/**
+ * Checks the signatures of a batch of transactions in parallel, before the batch enters the
+ * single-threaded state transition. Each transaction remembers a successful check, so the later
+ * validateSignature calls on the same capsule cost nothing.
+ */
+@Slf4j
+public class SignatureVerifier {
+
+  private static final ForkJoinPool POOL = new ForkJoinPool(
+      Runtime.getRuntime().availableProcessors(), pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory
+            .newThread(pool);
+        thread.setName("SignatureVerifier-" + thread.getPoolIndex());
+        return thread;
+      }, null, false);
+
+  private SignatureVerifier() {
+  }
+
+  /**
+   * Verify the signatures of all transactions, failing if any of them is wrong.
+   */
+  public static void verify(List<TransactionCapsule> transactions)
+      throws ValidateSignatureException {
+    if (transactions.size() < 2) {
+      for (TransactionCapsule trx : transactions) {
+        trx.validateSignature();
+      }
+      return;
+    }
+
+    List<ForkJoinTask<Boolean>> tasks = transactions.stream()
+        .map(trx -> POOL.submit(trx::validateSignature))
+        .collect(Collectors.toList());
+
+    ValidateSignatureException error = null;
+    for (ForkJoinTask<Boolean> task : tasks) {
+      try {
+        task.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ValidateSignatureException("signature verification interrupted");
+      } catch (ExecutionException e) {
+        if (error == null) {
+          error = e.getCause() instanceof ValidateSignatureException
+              ? (ValidateSignatureException) e.getCause()
+              : new ValidateSignatureException(e.getCause().getMessage());
+        }
+      }
+    }
+
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  /**
+   * Verify the signatures ahead of time, leaving the wrong ones to be rejected when the
+   * transactions are processed.
+   */
+  public static void preVerify(List<TransactionCapsule> transactions) {
+    try {
+      verify(transactions);
+    } catch (ValidateSignatureException e) {
+      logger.debug(e.getMessage(), e);
+    }
+  }
+}
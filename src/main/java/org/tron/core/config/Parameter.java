@@ -19,6 +19,10 @@ public interface Parameter {
 
     long SYNC_FETCH_BATCH_NUM = 1000;
     long SYNC_CHAIN_LIMIT_NUM = 500;
+    long SYNC_FETCH_WINDOW_TIME = 2000L; // ms of blocks in flight from one peer
+    int SYNC_FETCH_MIN_PER_PEER = 10;
+    int SYNC_FETCH_MAX_PER_PEER = 200;
+    int SYNC_APPLY_QUEUE_SIZE = 100;
 
   }
 
@@ -29,9 +33,11 @@ public interface Parameter {
   interface NetConstants {
     long ADV_TIME_OUT = 1000L;
     long SYNC_TIME_OUT = 5000L;
+    int SYNC_TIME_OUT_MAX_COUNT = 3; // consecutive sync time outs of a peer before it is dropped
     long HEAD_NUM_MAX_DELTA = 1000L;
     long HEAD_NUM_CHECK_TIME = 60000L;
     long MAX_INVENTORY_SIZE_IN_MINUTES = 2L;
+    int MAX_MESSAGE_SIZE = 4 * 1024 * 1024; // bytes of a decompressed frame
   }
 
 
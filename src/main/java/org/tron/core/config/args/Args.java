@@ -20,6 +20,7 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.stream.Collectors;
@@ -29,6 +30,7 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.iq80.leveldb.CompressionType;
 import org.spongycastle.util.encoders.Hex;
 import org.springframework.stereotype.Component;
 import org.tron.common.crypto.ECKey;
@@ -37,6 +39,7 @@ import org.tron.core.Constant;
 import org.tron.core.Wallet;
 import org.tron.core.config.Configuration;
 import org.tron.core.config.Parameter.ChainConstant;
+import org.tron.core.config.args.Storage.Property;
 import org.tron.core.db.AccountStore;
 
 @Slf4j
@@ -147,6 +150,14 @@ public class Args {
   @Setter
   private int nodeP2pVersion;
 
+  @Getter
+  @Setter
+  private boolean nodeP2pCompression;
+
+  @Getter
+  @Setter
+  private int nodeP2pCompressionThreshold;
+
   @Getter
   @Setter
   private String p2pNodeId;
@@ -178,6 +189,8 @@ public class Args {
     INSTANCE.nodeP2pPingInterval = 0L;
     INSTANCE.syncNodeCount = 0;
     INSTANCE.nodeP2pVersion = 0;
+    INSTANCE.nodeP2pCompression = false;
+    INSTANCE.nodeP2pCompressionThreshold = 0;
     INSTANCE.p2pNodeId = "";
   }
 
@@ -219,6 +232,15 @@ public class Args {
         .filter(StringUtils::isNotEmpty)
         .orElse(config.getString("storage.directory")));
     logger.info(INSTANCE.storage.getDirectory());
+    if (config.hasPath("storage.snapshot")) {
+      INSTANCE.storage.setSnapshot(config.getBoolean("storage.snapshot"));
+    }
+    if (config.hasPath("storage.transactionHistory")) {
+      INSTANCE.storage.setTransactionHistory(config.getBoolean("storage.transactionHistory"));
+    }
+    if (config.hasPath("storage.properties")) {
+      INSTANCE.storage.setPropertyMap(getStoragePropertiesFromConfig(config));
+    }
     INSTANCE.seedNode = new SeedNode();
     INSTANCE.seedNode.setIpList(Optional.ofNullable(INSTANCE.seedNodes)
         .filter(seedNode -> 0 != seedNode.size())
@@ -289,9 +311,46 @@ public class Args {
 
     INSTANCE.nodeP2pVersion =
         config.hasPath("node.p2p.version") ? config.getInt("node.p2p.version") : 0;
+
+    INSTANCE.nodeP2pCompression =
+        config.hasPath("node.p2p.compression") && config.getBoolean("node.p2p.compression");
+
+    INSTANCE.nodeP2pCompressionThreshold =
+        config.hasPath("node.p2p.compressionThreshold")
+            ? config.getInt("node.p2p.compressionThreshold") : 1024;
   }
 
 
+  private static Map<String, Property> getStoragePropertiesFromConfig(
+      final com.typesafe.config.Config config) {
+    return config.getObjectList("storage.properties").stream()
+        .map(Args::createStorageProperty)
+        .collect(Collectors.toMap(Property::getName, property -> property));
+  }
+
+  private static Property createStorageProperty(final ConfigObject propertyObject) {
+    final Config config = propertyObject.toConfig();
+    final Property property = new Property();
+    property.setName(config.getString("name"));
+    if (config.hasPath("blockSize")) {
+      property.setBlockSize(config.getInt("blockSize"));
+    }
+    if (config.hasPath("writeBufferSize")) {
+      property.setWriteBufferSize(config.getInt("writeBufferSize"));
+    }
+    if (config.hasPath("cacheSize")) {
+      property.setCacheSize(config.getLong("cacheSize"));
+    }
+    if (config.hasPath("maxOpenFiles")) {
+      property.setMaxOpenFiles(config.getInt("maxOpenFiles"));
+    }
+    if (config.hasPath("compressionType")) {
+      property.setCompressionType(
+          CompressionType.valueOf(config.getString("compressionType").toUpperCase()));
+    }
+    return property;
+  }
+
   private static List<Witness> getWitnessesFromConfig(final com.typesafe.config.Config config) {
     return config.getObjectList("genesis.block.witnesses").stream()
         .map(Args::createWitness)
@@ -1,11 +1,125 @@
 package org.tron.core.config.args;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import lombok.Getter;
 import lombok.Setter;
+import org.iq80.leveldb.CompressionType;
+import org.iq80.leveldb.Options;
 
 public class Storage {
 
+  /**
+   * Databases mostly appended to and seldom read at random: the chain, its indexes and the
+   * snapshot journal.
+   */
+  private static final List<String> SEQUENTIAL_DB_NAMES = Arrays
+      .asList("block", "trans", "block-index", "trans-history", "utxo_ADDRESS_INDEX",
+          "snapshot_JOURNAL");
+
   @Getter
   @Setter
   private String directory;
+
+  /**
+   * Keep revocable changes in memory and only write solidified ones to the database.
+   */
+  @Getter
+  @Setter
+  private boolean snapshot = true;
+
+  /**
+   * Index the transactions of every address, for the transaction history queries.
+   */
+  @Getter
+  @Setter
+  private boolean transactionHistory = false;
+
+  /**
+   * LevelDB options by database name, overriding the preset of that database.
+   */
+  @Getter
+  @Setter
+  private Map<String, Property> propertyMap = new HashMap<>();
+
+  /**
+   * Create the LevelDB options of a database.
+   */
+  public Options newDbOptions(String dbName) {
+    Options dbOptions = SEQUENTIAL_DB_NAMES.contains(dbName)
+        ? newSequentialDbOptions() : newPointLookupDbOptions();
+    Property property = propertyMap.get(dbName);
+    if (property != null) {
+      property.apply(dbOptions);
+    }
+    return dbOptions;
+  }
+
+  /**
+   * Small blocks and a block cache for random reads of small values, such as accounts.
+   */
+  public static Options newPointLookupDbOptions() {
+    Options dbOptions = newDefaultDbOptions();
+    dbOptions.blockSize(4 * 1024);
+    dbOptions.writeBufferSize(4 * 1024 * 1024);
+    dbOptions.cacheSize(16 * 1024 * 1024);
+    dbOptions.maxOpenFiles(100);
+    return dbOptions;
+  }
+
+  /**
+   * Large blocks and write buffer for append-mostly writes of large values, such as blocks.
+   */
+  public static Options newSequentialDbOptions() {
+    Options dbOptions = newDefaultDbOptions();
+    dbOptions.blockSize(64 * 1024);
+    dbOptions.writeBufferSize(16 * 1024 * 1024);
+    dbOptions.cacheSize(8 * 1024 * 1024);
+    dbOptions.maxOpenFiles(100);
+    return dbOptions;
+  }
+
+  private static Options newDefaultDbOptions() {
+    Options dbOptions = new Options();
+    dbOptions.createIfMissing(true);
+    dbOptions.compressionType(CompressionType.SNAPPY);
+    dbOptions.paranoidChecks(true);
+    dbOptions.verifyChecksums(true);
+    return dbOptions;
+  }
+
+  /**
+   * LevelDB options set in the config, unset ones keep the preset value.
+   */
+  @Getter
+  @Setter
+  public static class Property {
+
+    private String name;
+    private Integer blockSize;
+    private Integer writeBufferSize;
+    private Long cacheSize;
+    private Integer maxOpenFiles;
+    private CompressionType compressionType;
+
+    void apply(Options dbOptions) {
+      if (blockSize != null) {
+        dbOptions.blockSize(blockSize);
+      }
+      if (writeBufferSize != null) {
+        dbOptions.writeBufferSize(writeBufferSize);
+      }
+      if (cacheSize != null) {
+        dbOptions.cacheSize(cacheSize);
+      }
+      if (maxOpenFiles != null) {
+        dbOptions.maxOpenFiles(maxOpenFiles);
+      }
+      if (compressionType != null) {
+        dbOptions.compressionType(compressionType);
+      }
+    }
+  }
 }
@@ -6,13 +6,18 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ArrayUtils;
+import org.tron.common.storage.DbSourceInter;
 import org.tron.common.storage.SourceInter;
 import org.tron.common.utils.Utils;
 import org.tron.core.exception.RevokingStoreIllegalStateException;
@@ -26,6 +31,8 @@ public abstract class AbstractRevokingStore implements RevokingDatabase {
   private Deque<RevokingState> stack = new LinkedList<>();
   private boolean disabled = true;
   private int activeDialog = 0;
+  private int maxSize = DEFAULT_STACK_MAX_SIZE;
+  private Map<SourceInter<byte[], byte[]>, Consumer<byte[]>> revokingListeners = new HashMap<>();
 
   @Override
   public Dialog buildDialog() {
@@ -43,7 +50,8 @@ public abstract class AbstractRevokingStore implements RevokingDatabase {
       disabled = false;
     }
 
-    while (stack.size() > DEFAULT_STACK_MAX_SIZE) {
+    // only the committed states can go, the active dialogs still need theirs to revoke
+    while (stack.size() - activeDialog > maxSize) {
       stack.poll();
     }
 
@@ -53,7 +61,58 @@ public abstract class AbstractRevokingStore implements RevokingDatabase {
   }
 
   @Override
-  public synchronized void onCreate(RevokingTuple tuple, byte[] value) {
+  public synchronized byte[] getData(DbSourceInter<byte[]> database, byte[] key) {
+    return database.getData(key);
+  }
+
+  @Override
+  public synchronized void putData(DbSourceInter<byte[]> database, byte[] key, byte[] value) {
+    RevokingTuple tuple = new RevokingTuple(database, key);
+    byte[] oldValue = database.getData(key);
+    if (ArrayUtils.isNotEmpty(oldValue)) {
+      onModify(tuple, oldValue);
+    }
+
+    database.putData(key, value);
+
+    if (ArrayUtils.isEmpty(oldValue)) {
+      onCreate(tuple, null);
+    }
+  }
+
+  @Override
+  public synchronized void deleteData(DbSourceInter<byte[]> database, byte[] key) {
+    byte[] value = database.getData(key);
+    if (Objects.nonNull(value)) {
+      onRemove(new RevokingTuple(database, key), value);
+    }
+
+    database.deleteData(key);
+  }
+
+  @Override
+  public synchronized void purgeData(DbSourceInter<byte[]> database, byte[] key) {
+    RevokingTuple tuple = new RevokingTuple(database, key);
+    stack.forEach(state -> {
+      state.oldValues.remove(tuple);
+      state.newIds.remove(tuple);
+      state.removed.remove(tuple);
+    });
+    database.deleteData(key);
+  }
+
+  @Override
+  public Stream<Entry<byte[], byte[]>> stream(DbSourceInter<byte[]> database, byte[] from,
+      byte[] to) {
+    return database.stream(from, to);
+  }
+
+  @Override
+  public long getTotal(DbSourceInter<byte[]> database) {
+    return database.getTotal();
+  }
+
+  private void onCreate(RevokingTuple tuple, byte[] value) {
     if (disabled) {
       return;
     }
@@ -63,8 +122,7 @@ public abstract class AbstractRevokingStore implements RevokingDatabase {
     state.newIds.add(tuple);
   }
 
-  @Override
-  public synchronized void onModify(RevokingTuple tuple, byte[] value) {
+  private void onModify(RevokingTuple tuple, byte[] value) {
     if (disabled) {
       return;
     }
@@ -78,8 +136,7 @@ public abstract class AbstractRevokingStore implements RevokingDatabase {
     state.oldValues.put(tuple, Utils.clone(value));
   }
 
-  @Override
-  public synchronized void onRemove(RevokingTuple tuple, byte[] value) {
+  private void onRemove(RevokingTuple tuple, byte[] value) {
     if (disabled) {
       return;
     }
@@ -178,6 +235,7 @@ public abstract class AbstractRevokingStore implements RevokingDatabase {
       state.newIds.forEach(e -> e.database.deleteData(e.key));
       state.removed.forEach((k, v) -> k.database.putData(k.key, v));
       stack.pollLast();
+      notifyRevoked(state);
     } finally {
       disabled = false;
     }
@@ -211,12 +269,53 @@ public abstract class AbstractRevokingStore implements RevokingDatabase {
       state.newIds.forEach(e -> e.database.deleteData(e.key));
       state.removed.forEach((k, v) -> k.database.putData(k.key, v));
       stack.pollLast();
+      notifyRevoked(state);
     } finally {
       disabled = false;
     }
   }
 
   @Override
+  public synchronized void setMaxSize(int maxSize) {
+    this.maxSize = Math.min(maxSize, DEFAULT_STACK_MAX_SIZE);
+  }
+
+  /**
+   * The undo states only hold old values, so dropping them is all it takes to make the committed
+   * states permanent.
+   */
+  @Override
+  public synchronized void flush() {
+    while (stack.size() > activeDialog) {
+      stack.poll();
+    }
+  }
+
+  @Override
+  public synchronized void setRevokingListener(DbSourceInter<byte[]> database,
+      Consumer<byte[]> listener) {
+    if (listener == null) {
+      revokingListeners.remove(database);
+    } else {
+      revokingListeners.put(database, listener);
+    }
+  }
+
+  private void notifyRevoked(RevokingState state) {
+    if (revokingListeners.isEmpty()) {
+      return;
+    }
+
+    Stream.of(state.oldValues.keySet(), state.newIds, state.removed.keySet())
+        .flatMap(Set::stream)
+        .forEach(tuple -> {
+          Consumer<byte[]> listener = revokingListeners.get(tuple.database);
+          if (listener != null) {
+            listener.accept(tuple.key);
+          }
+        });
+  }
+
   public synchronized RevokingState head() {
     if (stack.isEmpty()) {
       return null;
@@ -1,14 +1,20 @@
 package org.tron.core.db;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.typesafe.config.ConfigObject;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ArrayUtils;
 import org.tron.common.utils.ByteArray;
 import org.tron.core.capsule.AccountCapsule;
+import org.tron.protos.Protocol.Account;
 
 @Slf4j
 public class AccountStore extends TronStoreWithRevoking<AccountCapsule> {
@@ -16,12 +22,28 @@ public class AccountStore extends TronStoreWithRevoking<AccountCapsule> {
   private static Map<String, String> assertsAddress = new HashMap<String, String>();
   private static AccountStore instance;
 
+  private static final long CACHE_MAX_WEIGHT = 64 * 1024 * 1024; // bytes of serialized accounts
+
+  // decoded accounts as seen by the current dialog, dropped when a dialog is revoked or popped
+  private final Cache<ByteArrayWrapper, Account> cache = CacheBuilder.newBuilder()
+      .maximumWeight(CACHE_MAX_WEIGHT)
+      .weigher((ByteArrayWrapper key, Account account) -> account.getSerializedSize())
+      .recordStats()
+      .build();
+  // bumped on every change, a read racing with a change must not fill the cache
+  private long cacheVersion = 0;
+
+  // the vote tally follows every account write, as the share of an account decides its votes
+  @Setter
+  private WitnessVoteStore witnessVoteStore;
 
   private AccountStore(String dbName) {
     super(dbName);
+    getRevokingDatabase().setRevokingListener(dbSource, this::invalidate);
   }
 
   public void destroy() {
+    getRevokingDatabase().setRevokingListener(dbSource, null);
     instance = null;
   }
 
@@ -43,8 +65,51 @@ public class AccountStore extends TronStoreWithRevoking<AccountCapsule> {
 
   @Override
   public AccountCapsule get(byte[] key) {
-    byte[] value = dbSource.getData(key);
-    return ArrayUtils.isEmpty(value) ? null : new AccountCapsule(value);
+    ByteArrayWrapper wrappedKey = new ByteArrayWrapper(key);
+    Account account = cache.getIfPresent(wrappedKey);
+    if (account != null) {
+      return new AccountCapsule(account);
+    }
+
+    long version;
+    synchronized (cache) {
+      version = cacheVersion;
+    }
+    byte[] value = getValue(key);
+    if (ArrayUtils.isEmpty(value)) {
+      return null;
+    }
+
+    AccountCapsule accountCapsule = new AccountCapsule(value);
+    if (accountCapsule.getInstance() != null) {
+      synchronized (cache) {
+        if (version == cacheVersion) {
+          cache.put(new ByteArrayWrapper(key.clone()), accountCapsule.getInstance());
+        }
+      }
+    }
+    return accountCapsule;
+  }
+
+  @Override
+  public void put(byte[] key, AccountCapsule item) {
+    if (witnessVoteStore != null) {
+      witnessVoteStore.updateVotes(get(key), item);
+    }
+    super.put(key, item);
+    synchronized (cache) {
+      ++cacheVersion;
+      cache.put(new ByteArrayWrapper(key.clone()), item.getInstance());
+    }
+  }
+
+  @Override
+  public void delete(byte[] key) {
+    if (witnessVoteStore != null) {
+      witnessVoteStore.updateVotes(get(key), null);
+    }
+    super.delete(key);
+    invalidate(key);
   }
 
   /**
@@ -54,45 +119,60 @@ public class AccountStore extends TronStoreWithRevoking<AccountCapsule> {
    */
   @Override
   public boolean has(byte[] key) {
-    byte[] account = dbSource.getData(key);
-    logger.info("address is {},account is {}", key, account);
+    AccountCapsule account = get(key);
+    logger.debug("address is {},account is {}", key, account);
     return null != account;
   }
 
+  /**
+   * Hit and miss counts of the account cache.
+   */
+  public CacheStats getCacheStats() {
+    return cache.stats();
+  }
+
+  private void invalidate(byte[] key) {
+    synchronized (cache) {
+      ++cacheVersion;
+      cache.invalidate(new ByteArrayWrapper(key));
+    }
+  }
+
   /**
    * get all accounts.
    */
   public List<AccountCapsule> getAllAccounts() {
-    return dbSource.allValues().stream().map(bytes ->
-        new AccountCapsule(bytes)
-    ).collect(Collectors.toList());
+    try (Stream<AccountCapsule> accounts = getAccountStream()) {
+      return accounts.collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Iterate lazily over all accounts, the stream has to be closed.
+   */
+  public Stream<AccountCapsule> getAccountStream() {
+    return stream(null, null).map(entry -> new AccountCapsule(entry.getValue()));
   }
 
   /**
    * Max TRX account.
    */
   public AccountCapsule getSun() {
-    byte[] data = dbSource.getData((ByteArray.fromHexString(assertsAddress.get("Sun"))));
-    AccountCapsule accountCapsule = new AccountCapsule(data);
-    return accountCapsule;
+    return get(ByteArray.fromHexString(assertsAddress.get("Sun")));
   }
 
   /**
    * Min TRX account.
    */
   public AccountCapsule getBlackhole() {
-    byte[] data = dbSource.getData((ByteArray.fromHexString(assertsAddress.get("Blackhole"))));
-    AccountCapsule accountCapsule = new AccountCapsule(data);
-    return accountCapsule;
+    return get(ByteArray.fromHexString(assertsAddress.get("Blackhole")));
   }
 
   /**
    * Get foundation account info.
    */
   public AccountCapsule getZion() {
-    byte[] data = dbSource.getData((ByteArray.fromHexString(assertsAddress.get("Zion"))));
-    AccountCapsule accountCapsule = new AccountCapsule(data);
-    return accountCapsule;
+    return get(ByteArray.fromHexString(assertsAddress.get("Zion")));
   }
 
   public static void setAccount(com.typesafe.config.Config config) {
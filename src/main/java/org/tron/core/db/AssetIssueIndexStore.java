@@ -0,0 +1,88 @@
+package org.tron.core.db;
+
+import com.google.protobuf.ByteString;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ArrayUtils;
+import org.tron.core.capsule.AssetIssueCapsule;
+import org.tron.core.capsule.BytesCapsule;
+
+/**
+ * Index of the asset issues by owner address: [owner length][owner][name] to the name. The
+ * assets of an owner are listed in name order by a prefix scan, without reading the others.
+ */
+@Slf4j
+public class AssetIssueIndexStore extends TronStoreWithRevoking<BytesCapsule> {
+
+  private static AssetIssueIndexStore instance;
+
+  private AssetIssueIndexStore(String dbName) {
+    super(dbName);
+  }
+
+  public static void destroy() {
+    instance = null;
+  }
+
+  /**
+   * create fun.
+   *
+   * @param dbName the name of database
+   */
+  public static AssetIssueIndexStore create(String dbName) {
+    if (instance == null) {
+      synchronized (AssetIssueIndexStore.class) {
+        if (instance == null) {
+          instance = new AssetIssueIndexStore(dbName);
+        }
+      }
+    }
+    return instance;
+  }
+
+  @Override
+  public BytesCapsule get(byte[] key) {
+    byte[] value = getValue(key);
+    return ArrayUtils.isEmpty(value) ? null : new BytesCapsule(value);
+  }
+
+  @Override
+  public boolean has(byte[] key) {
+    return null != getValue(key);
+  }
+
+  /**
+   * Index an asset issue under its owner.
+   */
+  public void put(AssetIssueCapsule assetIssue) {
+    put(ownerKey(assetIssue.getOwnerAddress(), assetIssue.getName()),
+        new BytesCapsule(assetIssue.getName().toByteArray()));
+  }
+
+  /**
+   * Remove an asset issue from the index.
+   */
+  public void delete(AssetIssueCapsule assetIssue) {
+    delete(ownerKey(assetIssue.getOwnerAddress(), assetIssue.getName()));
+  }
+
+  /**
+   * Get a page of the names of the assets issued by an owner, in name order.
+   */
+  public List<ByteString> getAssetIssueNames(ByteString ownerAddress, long offset, long limit) {
+    try (Stream<ByteString> names = prefixStream(ownerPrefix(ownerAddress))
+        .map(entry -> ByteString.copyFrom(entry.getValue()))) {
+      return names.skip(offset).limit(limit).collect(Collectors.toList());
+    }
+  }
+
+  private static byte[] ownerPrefix(ByteString ownerAddress) {
+    return ArrayUtils.add(ownerAddress.toByteArray(), 0, (byte) ownerAddress.size());
+  }
+
+  private static byte[] ownerKey(ByteString ownerAddress, ByteString name) {
+    return ArrayUtils.addAll(ownerPrefix(ownerAddress), name.toByteArray());
+  }
+}
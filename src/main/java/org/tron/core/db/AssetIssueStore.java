@@ -2,6 +2,7 @@ package org.tron.core.db;
 
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ArrayUtils;
 import org.tron.core.capsule.AssetIssueCapsule;
@@ -37,7 +38,7 @@ public class AssetIssueStore extends TronStoreWithRevoking<AssetIssueCapsule> {
 
   @Override
   public AssetIssueCapsule get(byte[] key) {
-    byte[] value = dbSource.getData(key);
+    byte[] value = getValue(key);
     return ArrayUtils.isEmpty(value) ? null : new AssetIssueCapsule(value);
   }
 
@@ -48,7 +49,7 @@ public class AssetIssueStore extends TronStoreWithRevoking<AssetIssueCapsule> {
    */
   @Override
   public boolean has(byte[] key) {
-    byte[] assetIssue = dbSource.getData(key);
+    byte[] assetIssue = getValue(key);
     logger.info("name is {}, asset issue is {}", key, assetIssue);
     return null != assetIssue;
   }
@@ -57,8 +58,24 @@ public class AssetIssueStore extends TronStoreWithRevoking<AssetIssueCapsule> {
    * get all asset issues.
    */
   public List<AssetIssueCapsule> getAllAssetIssues() {
-    return dbSource.allKeys().stream()
-        .map(this::get)
-        .collect(Collectors.toList());
+    try (Stream<AssetIssueCapsule> assetIssues = getAssetIssueStream()) {
+      return assetIssues.collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Get a page of the asset issues, in name order.
+   */
+  public List<AssetIssueCapsule> getAssetIssues(long offset, long limit) {
+    try (Stream<AssetIssueCapsule> assetIssues = getAssetIssueStream()) {
+      return assetIssues.skip(offset).limit(limit).collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Iterate lazily over all asset issues, the stream has to be closed.
+   */
+  public Stream<AssetIssueCapsule> getAssetIssueStream() {
+    return stream(null, null).map(entry -> new AssetIssueCapsule(entry.getValue()));
   }
 }
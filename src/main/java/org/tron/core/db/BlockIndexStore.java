@@ -0,0 +1,202 @@
+package org.tron.core.db;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.ByteString;
+import java.nio.ByteBuffer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ArrayUtils;
+import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.capsule.BlockCapsule.BlockId;
+import org.tron.core.capsule.BytesCapsule;
+
+/**
+ * Index of the blocks of the main chain: block id to a compact header (number, parent,
+ * timestamp, witness) and block number to block id. Existence, number and header queries are
+ * answered without loading the block bodies, the headers of the recent blocks from memory.
+ */
+@Slf4j
+public class BlockIndexStore extends TronStoreWithRevoking<BytesCapsule> {
+
+  private static final byte HASH_PREFIX = 'h';
+  private static final byte NUM_PREFIX = 'n';
+
+  private static final int HEADER_CACHE_SIZE = 4096;
+
+  private static BlockIndexStore instance;
+
+  // headers of the recent blocks, dropped when their block is revoked, popped or deleted
+  private final Cache<Sha256Hash, BlockIndex> headerCache = CacheBuilder.newBuilder()
+      .maximumSize(HEADER_CACHE_SIZE)
+      .build();
+  // bumped on every drop, a read racing with it must not fill the cache
+  private long headerCacheVersion = 0;
+
+  private BlockIndexStore(String dbName) {
+    super(dbName);
+    getRevokingDatabase().setRevokingListener(dbSource, this::invalidate);
+  }
+
+  public static void destroy() {
+    if (instance != null) {
+      instance.getRevokingDatabase().setRevokingListener(instance.dbSource, null);
+    }
+    instance = null;
+  }
+
+  /**
+   * create fun.
+   *
+   * @param dbName the name of database
+   */
+  public static BlockIndexStore create(String dbName) {
+    if (instance == null) {
+      synchronized (BlockIndexStore.class) {
+        if (instance == null) {
+          instance = new BlockIndexStore(dbName);
+        }
+      }
+    }
+    return instance;
+  }
+
+  @Override
+  public BytesCapsule get(byte[] key) {
+    byte[] value = getValue(key);
+    return ArrayUtils.isEmpty(value) ? null : new BytesCapsule(value);
+  }
+
+  @Override
+  public boolean has(byte[] key) {
+    return null != getValue(key);
+  }
+
+  /**
+   * Index a block of the main chain, it replaces the block previously indexed at its number.
+   */
+  public void put(BlockCapsule block) {
+    BlockId blockId = block.getBlockId();
+    BlockIndex blockIndex = new BlockIndex(block);
+    put(hashKey(blockId), new BytesCapsule(blockIndex.toByteArray()));
+    put(numKey(block.getNum()), new BytesCapsule(blockId.getBytes()));
+    headerCache.put(blockId, blockIndex);
+  }
+
+  /**
+   * Remove a block from the index.
+   */
+  public void delete(BlockId blockId) {
+    delete(hashKey(blockId));
+    invalidate(hashKey(blockId));
+    BlockId indexed = getBlockId(blockId.getNum());
+    if (blockId.equals(indexed)) {
+      delete(numKey(blockId.getNum()));
+    }
+  }
+
+  /**
+   * Get the id of the main chain block at a number, null if there is none.
+   */
+  public BlockId getBlockId(long num) {
+    byte[] hash = getValue(numKey(num));
+    return ArrayUtils.isEmpty(hash) ? null : new BlockId(Sha256Hash.wrap(hash), num);
+  }
+
+  /**
+   * Get the header of an indexed block, null if it isn't indexed.
+   */
+  public BlockIndex getBlockIndex(Sha256Hash blockHash) {
+    BlockIndex blockIndex = headerCache.getIfPresent(blockHash);
+    if (blockIndex != null) {
+      return blockIndex;
+    }
+
+    long version;
+    synchronized (headerCache) {
+      version = headerCacheVersion;
+    }
+    byte[] value = getValue(hashKey(blockHash));
+    if (ArrayUtils.isEmpty(value)) {
+      return null;
+    }
+
+    blockIndex = BlockIndex.parse(blockHash, value);
+    synchronized (headerCache) {
+      if (version == headerCacheVersion) {
+        headerCache.put(blockIndex.getBlockId(), blockIndex);
+      }
+    }
+    return blockIndex;
+  }
+
+  public boolean hasBlock(Sha256Hash blockHash) {
+    return headerCache.getIfPresent(blockHash) != null || null != getValue(hashKey(blockHash));
+  }
+
+  private void invalidate(byte[] key) {
+    if (key.length != Sha256Hash.LENGTH + 1 || key[0] != HASH_PREFIX) {
+      return;
+    }
+
+    synchronized (headerCache) {
+      ++headerCacheVersion;
+      headerCache.invalidate(Sha256Hash.wrap(ArrayUtils.remove(key, 0)));
+    }
+  }
+
+  private static byte[] hashKey(Sha256Hash blockHash) {
+    return ArrayUtils.add(blockHash.getBytes(), 0, HASH_PREFIX);
+  }
+
+  private static byte[] numKey(long num) {
+    return ArrayUtils.add(ByteArray.fromLong(num), 0, NUM_PREFIX);
+  }
+
+  @Getter
+  public static class BlockIndex {
+
+    private final BlockId blockId;
+    private final Sha256Hash parentHash;
+    private final long timestamp;
+    private final ByteString witnessAddress;
+
+    BlockIndex(BlockCapsule block) {
+      this(block.getBlockId(), block.getParentHash(), block.getTimeStamp(),
+          block.getWitnessAddress());
+    }
+
+    private BlockIndex(BlockId blockId, Sha256Hash parentHash, long timestamp,
+        ByteString witnessAddress) {
+      this.blockId = blockId;
+      this.parentHash = parentHash;
+      this.timestamp = timestamp;
+      this.witnessAddress = witnessAddress;
+    }
+
+    public long getNum() {
+      return blockId.getNum();
+    }
+
+    static BlockIndex parse(Sha256Hash blockHash, byte[] data) {
+      ByteBuffer buffer = ByteBuffer.wrap(data);
+      long num = buffer.getLong();
+      long timestamp = buffer.getLong();
+      byte[] parentHash = new byte[Sha256Hash.LENGTH];
+      buffer.get(parentHash);
+      return new BlockIndex(new BlockId(blockHash, num), Sha256Hash.wrap(parentHash), timestamp,
+          ByteString.copyFrom(buffer));
+    }
+
+    byte[] toByteArray() {
+      return ByteBuffer.allocate(2 * Long.BYTES + Sha256Hash.LENGTH + witnessAddress.size())
+          .putLong(blockId.getNum())
+          .putLong(timestamp)
+          .put(parentHash.getBytes())
+          .put(witnessAddress.asReadOnlyByteBuffer())
+          .array();
+    }
+  }
+}
@@ -0,0 +1,259 @@
+package org.tron.core.db;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.core.config.args.Args;
+
+/**
+ * Append-only log of the solidified blocks, in fixed-size segment files which are memory mapped.
+ * Blocks are appended in number order and read back by number straight from the mapping, so they
+ * never go through LevelDB compaction. Each record is its length, a CRC32 and the block bytes; a
+ * torn record at the end of the last segment is dropped when the log is opened.
+ */
+@Slf4j
+public class BlockLog implements AutoCloseable {
+
+  static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+  private static final int HEADER_SIZE = 2 * Integer.BYTES;
+  private static final String SUFFIX = ".blk";
+  // cleared in chunks of this, a torn tail can span most of a segment
+  private static final byte[] ZEROS = new byte[64 * 1024];
+
+  private final File directory;
+  private final int segmentSize;
+  // by the number of their first block
+  private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+
+  public BlockLog(String parentName, String name) {
+    this(Paths.get(parentName + Args.getInstance().getStorage().getDirectory(), name).toFile(),
+        DEFAULT_SEGMENT_SIZE);
+  }
+
+  BlockLog(File directory, int segmentSize) {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+  }
+
+  /**
+   * Map the existing segments and find the end of the log.
+   */
+  public synchronized void open() {
+    if (!directory.exists() && !directory.mkdirs()) {
+      throw new IllegalStateException("can't create block log directory " + directory);
+    }
+
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+    if (files == null) {
+      return;
+    }
+
+    Arrays.sort(files);
+    for (File file : files) {
+      long firstNum = Long.parseLong(file.getName().substring(0,
+          file.getName().length() - SUFFIX.length()));
+      segments.put(firstNum, new Segment(file, firstNum));
+    }
+    // a segment is created right before its first append
+    while (!segments.isEmpty() && segments.lastEntry().getValue().count == 0) {
+      segments.pollLastEntry().getValue().delete();
+    }
+    logger.info("open block log {}, blocks [{}, {}]", directory, getFirstNum(), getLastNum());
+  }
+
+  public synchronized boolean isEmpty() {
+    return segments.isEmpty();
+  }
+
+  /**
+   * Get the number of the first block of the log, -1 if it is empty.
+   */
+  public synchronized long getFirstNum() {
+    return isEmpty() ? -1 : segments.firstKey();
+  }
+
+  /**
+   * Get the number of the last block of the log, -1 if it is empty.
+   */
+  public synchronized long getLastNum() {
+    if (isEmpty()) {
+      return -1;
+    }
+    Segment last = segments.lastEntry().getValue();
+    return last.firstNum + last.count - 1;
+  }
+
+  /**
+   * Append a block, its number has to follow the last one unless the log is empty.
+   */
+  public synchronized void append(long num, byte[] data) {
+    if (!isEmpty() && num != getLastNum() + 1) {
+      throw new IllegalArgumentException(
+          "block " + num + " doesn't follow the last block " + getLastNum());
+    }
+    if (HEADER_SIZE + data.length > segmentSize) {
+      throw new IllegalArgumentException("block " + num + " is larger than a segment");
+    }
+
+    Segment segment = segments.isEmpty() ? null : segments.lastEntry().getValue();
+    if (segment == null || segment.position + HEADER_SIZE + data.length > segmentSize) {
+      if (segment != null) {
+        segment.buffer.force();
+      }
+      segment = new Segment(new File(directory, String.format("%020d%s", num, SUFFIX)), num);
+      segments.put(num, segment);
+    }
+    segment.append(data);
+  }
+
+  /**
+   * Get a read-only view of a block in the mapped segment, null if it isn't in the log.
+   */
+  public synchronized ByteBuffer getBuffer(long num) {
+    Map.Entry<Long, Segment> entry = segments.floorEntry(num);
+    if (entry == null) {
+      return null;
+    }
+    return entry.getValue().read((int) (num - entry.getKey()));
+  }
+
+  /**
+   * Get the bytes of a block, null if it isn't in the log.
+   */
+  public byte[] get(long num) {
+    ByteBuffer buffer = getBuffer(num);
+    if (buffer == null) {
+      return null;
+    }
+    byte[] data = new byte[buffer.remaining()];
+    buffer.get(data);
+    return data;
+  }
+
+  /**
+   * Write the appended blocks to disk.
+   */
+  public synchronized void flush() {
+    if (!segments.isEmpty()) {
+      segments.lastEntry().getValue().buffer.force();
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    flush();
+    segments.values().forEach(Segment::close);
+    segments.clear();
+  }
+
+  private class Segment {
+
+    private final File file;
+    private final long firstNum;
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer buffer;
+    private int[] offsets = new int[1024];
+    private int count = 0;
+    private int position = 0;
+
+    Segment(File file, long firstNum) {
+      this.file = file;
+      this.firstNum = firstNum;
+      try {
+        this.raf = new RandomAccessFile(file, "rw");
+        this.buffer = raf.getChannel().map(MapMode.READ_WRITE, 0, segmentSize);
+      } catch (IOException e) {
+        throw new IllegalStateException("can't map block log segment " + file, e);
+      }
+      recover();
+    }
+
+    /**
+     * Index the records up to the first missing or torn one, and clear what follows it.
+     */
+    private void recover() {
+      while (true) {
+        if (position + HEADER_SIZE > segmentSize || buffer.getInt(position) == 0) {
+          return;
+        }
+        int length = buffer.getInt(position);
+        if (length < 0 || position + HEADER_SIZE + length > segmentSize
+            || buffer.getInt(position + Integer.BYTES) != checksum(position, length)) {
+          break;
+        }
+        addOffset(position);
+        position += HEADER_SIZE + length;
+      }
+
+      logger.warn("drop torn block log record at {} of {}", position, file);
+      ByteBuffer view = buffer.duplicate();
+      view.position(position);
+      view.limit(segmentSize);
+      while (view.hasRemaining()) {
+        view.put(ZEROS, 0, Math.min(ZEROS.length, view.remaining()));
+      }
+    }
+
+    void append(byte[] data) {
+      ByteBuffer view = buffer.duplicate();
+      view.position(position + HEADER_SIZE);
+      view.put(data);
+      buffer.putInt(position + Integer.BYTES, checksum(position, data.length));
+      buffer.putInt(position, data.length);
+      addOffset(position);
+      position += HEADER_SIZE + data.length;
+    }
+
+    ByteBuffer read(int index) {
+      if (index < 0 || index >= count) {
+        return null;
+      }
+      int offset = offsets[index];
+      ByteBuffer view = buffer.duplicate();
+      view.position(offset + HEADER_SIZE);
+      view.limit(offset + HEADER_SIZE + buffer.getInt(offset));
+      return view.slice().asReadOnlyBuffer();
+    }
+
+    private int checksum(int offset, int length) {
+      ByteBuffer view = buffer.duplicate();
+      view.position(offset + HEADER_SIZE);
+      view.limit(offset + HEADER_SIZE + length);
+      CRC32 crc = new CRC32();
+      crc.update(view);
+      return (int) crc.getValue();
+    }
+
+    private void addOffset(int offset) {
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count * 2);
+      }
+      offsets[count++] = offset;
+    }
+
+    void close() {
+      try {
+        raf.close();
+      } catch (IOException e) {
+        logger.warn("close block log segment " + file + " failed", e);
+      }
+    }
+
+    void delete() {
+      close();
+      if (!file.delete()) {
+        logger.warn("delete empty block log segment {} failed", file);
+      }
+    }
+  }
+}
@@ -15,6 +15,7 @@
 
 package org.tron.core.db;
 
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ArrayUtils;
 import org.joda.time.DateTime;
@@ -86,13 +87,28 @@ public class BlockStore extends TronStoreWithRevoking<BlockCapsule> {
 
   @Override
   public BlockCapsule get(byte[] key) {
-    byte[] value = dbSource.getData(key);
+    byte[] value = getValue(key);
     return ArrayUtils.isEmpty(value) ? null : new BlockCapsule(value);
   }
 
+  /**
+   * Get the serialized block, null if it isn't stored.
+   */
+  public byte[] getBlockData(byte[] key) {
+    byte[] value = getValue(key);
+    return ArrayUtils.isEmpty(value) ? null : value;
+  }
+
+  /**
+   * Iterate lazily over all blocks, the stream has to be closed.
+   */
+  public Stream<BlockCapsule> getBlockStream() {
+    return stream(null, null).map(entry -> new BlockCapsule(entry.getValue()));
+  }
+
   @Override
   public boolean has(byte[] key) {
-    byte[] block = dbSource.getData(key);
+    byte[] block = getValue(key);
     logger.info("address is {}, block is {}", key, block);
     return null != block;
   }
@@ -1,6 +1,8 @@
 package org.tron.core.db;
 
 import com.google.protobuf.ByteString;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import org.joda.time.DateTime;
@@ -13,6 +15,10 @@ public class DynamicPropertiesStore extends TronStoreWithRevoking<BytesCapsule>
 
   private static final long MAINTENANCE_TIME_INTERVAL = 24 * 3600 * 1000;// (ms)
 
+  private static final ByteString EMPTY_HASH = ByteString.copyFrom(ByteArray.fromHexString("00"));
+
+  private static final byte[] LATEST_BLOCK_HEADER = "latest_block_header".getBytes();
+  // written by older versions, only read to migrate them
   private static final byte[] LATEST_BLOCK_HEADER_TIMESTAMP = "latest_block_header_timestamp"
       .getBytes();
   private static final byte[] LATEST_BLOCK_HEADER_NUMBER = "latest_block_header_number".getBytes();
@@ -21,6 +27,7 @@ public class DynamicPropertiesStore extends TronStoreWithRevoking<BytesCapsule>
       .getBytes(); // 1 : is maintenance, 0 : is not maintenance
   private static final byte[] LATEST_SOLIDIFIED_BLOCK_NUM = "LATEST_SOLIDIFIED_BLOCK_NUM"
       .getBytes();
+  private static final byte[] TOTAL_TRANSACTION_COUNT = "total_transaction_count".getBytes();
 
 
   private BlockFilledSlots blockFilledSlots = new BlockFilledSlots();
@@ -28,39 +35,28 @@ public class DynamicPropertiesStore extends TronStoreWithRevoking<BytesCapsule>
   private DateTime nextMaintenanceTime = new DateTime(
       Long.parseLong(Args.getInstance().getGenesisBlock().getTimestamp()));
 
+  // the values as seen by the current dialog, reloaded when a dialog is revoked or popped
+  private volatile LatestBlockHeader latestBlockHeader;
+  private volatile int stateFlag;
+  private volatile long latestSolidifiedBlockNum;
+  private volatile long totalTransactionCount;
+
   private DynamicPropertiesStore(String dbName) {
     super(dbName);
-    try {
-      this.getLatestBlockHeaderTimestamp();
-    } catch (IllegalArgumentException e) {
-      this.saveLatestBlockHeaderTimestamp(0);
-    }
+    load();
+    getRevokingDatabase().setRevokingListener(dbSource, this::reload);
 
-    try {
-      this.getLatestBlockHeaderNumber();
-    } catch (IllegalArgumentException e) {
-      this.saveLatestBlockHeaderNumber(0);
+    if (latestBlockHeader == null) {
+      this.saveLatestBlockHeader(0, 0, EMPTY_HASH);
     }
 
-    try {
-      this.getLatestBlockHeaderHash();
-    } catch (IllegalArgumentException e) {
-      this.saveLatestBlockHeaderHash(ByteString.copyFrom(ByteArray.fromHexString("00")));
-    }
-
-    try {
-      this.getStateFlag();
-    } catch (IllegalArgumentException e) {
+    if (this.getValue(STATE_FLAG) == null) {
       this.saveStateFlag(0);
     }
 
-    try {
-      this.getLatestSolidifiedBlockNum();
-    } catch (IllegalArgumentException e) {
+    if (this.getValue(LATEST_SOLIDIFIED_BLOCK_NUM) == null) {
       this.saveLatestSolidifiedBlockNum(0);
     }
-
-
   }
 
 
@@ -82,6 +78,7 @@ public class DynamicPropertiesStore extends TronStoreWithRevoking<BytesCapsule>
   private static DynamicPropertiesStore instance;
 
   public void destroy() {
+    getRevokingDatabase().setRevokingListener(dbSource, null);
     instance = null;
   }
 
@@ -102,79 +99,157 @@ public class DynamicPropertiesStore extends TronStoreWithRevoking<BytesCapsule>
     return instance;
   }
 
+  /**
+   * Read every property from the store into the fields.
+   */
+  private void load() {
+    loadLatestBlockHeader();
+    loadStateFlag();
+    loadLatestSolidifiedBlockNum();
+    loadTotalTransactionCount();
+  }
+
+  /**
+   * Read again only the field of a property the revoking store reverted.
+   */
+  private void reload(byte[] key) {
+    if (Arrays.equals(key, STATE_FLAG)) {
+      loadStateFlag();
+    } else if (Arrays.equals(key, LATEST_SOLIDIFIED_BLOCK_NUM)) {
+      loadLatestSolidifiedBlockNum();
+    } else if (Arrays.equals(key, TOTAL_TRANSACTION_COUNT)) {
+      loadTotalTransactionCount();
+    } else if (Arrays.equals(key, LATEST_BLOCK_HEADER)
+        || Arrays.equals(key, LATEST_BLOCK_HEADER_NUMBER)
+        || Arrays.equals(key, LATEST_BLOCK_HEADER_TIMESTAMP)
+        || Arrays.equals(key, LATEST_BLOCK_HEADER_HASH)) {
+      loadLatestBlockHeader();
+    }
+  }
+
+  private void loadLatestBlockHeader() {
+    byte[] header = this.getValue(LATEST_BLOCK_HEADER);
+    if (header != null) {
+      latestBlockHeader = LatestBlockHeader.parse(header);
+    } else if (this.getValue(LATEST_BLOCK_HEADER_NUMBER) != null) {
+      latestBlockHeader = new LatestBlockHeader(
+          ByteArray.toLong(this.getValue(LATEST_BLOCK_HEADER_NUMBER)),
+          Optional.ofNullable(this.getValue(LATEST_BLOCK_HEADER_TIMESTAMP))
+              .map(ByteArray::toLong).orElse(0L),
+          Optional.ofNullable(this.getValue(LATEST_BLOCK_HEADER_HASH))
+              .map(ByteString::copyFrom).orElse(EMPTY_HASH));
+    } else {
+      latestBlockHeader = null;
+    }
+  }
+
+  private void loadStateFlag() {
+    stateFlag = Optional.ofNullable(this.getValue(STATE_FLAG))
+        .map(ByteArray::toInt)
+        .orElse(0);
+  }
+
+  private void loadLatestSolidifiedBlockNum() {
+    latestSolidifiedBlockNum = Optional.ofNullable(this.getValue(LATEST_SOLIDIFIED_BLOCK_NUM))
+        .map(ByteArray::toLong)
+        .orElse(0L);
+  }
+
+  private void loadTotalTransactionCount() {
+    totalTransactionCount = Optional.ofNullable(this.getValue(TOTAL_TRANSACTION_COUNT))
+        .map(ByteArray::toLong)
+        .orElse(0L);
+  }
 
   public void saveLatestSolidifiedBlockNum(long number) {
     this.put(this.LATEST_SOLIDIFIED_BLOCK_NUM, new BytesCapsule(ByteArray.fromLong(number)));
+    latestSolidifiedBlockNum = number;
   }
 
   public long getLatestSolidifiedBlockNum() {
-    return Optional.ofNullable(this.dbSource.getData(LATEST_SOLIDIFIED_BLOCK_NUM))
-        .map(ByteArray::toLong)
-        .orElseThrow(
-            () -> new IllegalArgumentException("not found latest SOLIDIFIED_BLOCK_NUM timestamp"));
-    //return ByteArray.toLong(this.dbSource.getData(this.SOLIDIFIED_THRESHOLD));
+    return latestSolidifiedBlockNum;
+  }
+
+  /**
+   * Whether the transaction count is stored, stores written by older versions don't have it.
+   */
+  public boolean hasTotalTransactionCount() {
+    return this.getValue(TOTAL_TRANSACTION_COUNT) != null;
+  }
+
+  public void saveTotalTransactionCount(long count) {
+    this.put(TOTAL_TRANSACTION_COUNT, new BytesCapsule(ByteArray.fromLong(count)));
+    totalTransactionCount = count;
+  }
+
+  /**
+   * get the number of transactions in the transaction store.
+   */
+  public long getTotalTransactionCount() {
+    return totalTransactionCount;
   }
 
   /**
    * get timestamp of creating global latest block.
    */
   public long getLatestBlockHeaderTimestamp() {
-    return Optional.ofNullable(this.dbSource.getData(LATEST_BLOCK_HEADER_TIMESTAMP))
-        .map(ByteArray::toLong)
-        .orElseThrow(() -> new IllegalArgumentException("not found latest block header timestamp"));
+    return latestBlockHeader.timestamp;
   }
 
   /**
    * get number of global latest block.
    */
   public long getLatestBlockHeaderNumber() {
-    return Optional.ofNullable(this.dbSource.getData(LATEST_BLOCK_HEADER_NUMBER))
-        .map(ByteArray::toLong)
-        .orElseThrow(() -> new IllegalArgumentException("not found latest block header number"));
+    return latestBlockHeader.number;
   }
 
   public int getStateFlag() {
-    return Optional.ofNullable(this.dbSource.getData(STATE_FLAG))
-        .map(ByteArray::toInt)
-        .orElseThrow(() -> new IllegalArgumentException("not found maintenance flag"));
+    return stateFlag;
   }
 
   /**
    * get id of global latest block.
    */
   public ByteString getLatestBlockHeaderHash() {
-    return Optional.ofNullable(this.dbSource.getData(LATEST_BLOCK_HEADER_HASH))
-        .map(ByteString::copyFrom)
-        .orElseThrow(() -> new IllegalArgumentException("not found latest block header id"));
+    return latestBlockHeader.hash;
+  }
+
+  /**
+   * save number, timestamp and id of global latest block, as a single record.
+   */
+  public void saveLatestBlockHeader(long number, long timestamp, ByteString hash) {
+    LatestBlockHeader header = new LatestBlockHeader(number, timestamp, hash);
+    logger.debug("update latest block header, number = {}, timestamp = {}, id = {}",
+        number, timestamp, ByteArray.toHexString(hash.toByteArray()));
+    this.put(LATEST_BLOCK_HEADER, new BytesCapsule(header.toByteArray()));
+    latestBlockHeader = header;
   }
 
   /**
    * save timestamp of creating global latest block.
    */
   public void saveLatestBlockHeaderTimestamp(long t) {
-    logger.info("update latest block header timestamp = {}", t);
-    this.put(LATEST_BLOCK_HEADER_TIMESTAMP, new BytesCapsule(ByteArray.fromLong(t)));
+    saveLatestBlockHeader(getLatestBlockHeaderNumber(), t, getLatestBlockHeaderHash());
   }
 
   /**
    * save number of global latest block.
    */
   public void saveLatestBlockHeaderNumber(long n) {
-    logger.info("update latest block header number = {}", n);
-    this.put(LATEST_BLOCK_HEADER_NUMBER, new BytesCapsule(ByteArray.fromLong(n)));
+    saveLatestBlockHeader(n, getLatestBlockHeaderTimestamp(), getLatestBlockHeaderHash());
   }
 
   /**
    * save id of global latest block.
    */
   public void saveLatestBlockHeaderHash(ByteString h) {
-    logger.info("update latest block header id = {}", ByteArray.toHexString(h.toByteArray()));
-    this.put(LATEST_BLOCK_HEADER_HASH, new BytesCapsule(h.toByteArray()));
+    saveLatestBlockHeader(getLatestBlockHeaderNumber(), getLatestBlockHeaderTimestamp(), h);
   }
 
   private void saveStateFlag(int n) {
     logger.info("update state flag = {}", n);
     this.put(STATE_FLAG, new BytesCapsule(ByteArray.fromInt(n)));
+    stateFlag = n;
   }
 
   public BlockFilledSlots getBlockFilledSlots() {
@@ -207,4 +282,31 @@ public class DynamicPropertiesStore extends TronStoreWithRevoking<BytesCapsule>
     );
   }
 
+  private static class LatestBlockHeader {
+
+    private final long number;
+    private final long timestamp;
+    private final ByteString hash;
+
+    LatestBlockHeader(long number, long timestamp, ByteString hash) {
+      this.number = number;
+      this.timestamp = timestamp;
+      this.hash = hash;
+    }
+
+    static LatestBlockHeader parse(byte[] data) {
+      ByteBuffer buffer = ByteBuffer.wrap(data);
+      long number = buffer.getLong();
+      long timestamp = buffer.getLong();
+      return new LatestBlockHeader(number, timestamp, ByteString.copyFrom(buffer));
+    }
+
+    byte[] toByteArray() {
+      return ByteBuffer.allocate(2 * Long.BYTES + hash.size())
+          .putLong(number)
+          .putLong(timestamp)
+          .put(hash.asReadOnlyByteBuffer())
+          .array();
+    }
+  }
 }
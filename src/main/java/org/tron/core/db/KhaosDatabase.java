@@ -1,19 +1,31 @@
 package org.tron.core.db;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
+import java.util.TreeMap;
 import java.util.stream.Stream;
 import javafx.util.Pair;
+import lombok.extern.slf4j.Slf4j;
 import org.tron.common.utils.Sha256Hash;
 import org.tron.core.capsule.BlockCapsule;
 import org.tron.core.capsule.BlockCapsule.BlockId;
 import org.tron.core.exception.UnLinkedBlockException;
 
+/**
+ * The recent blocks which may still be switched out, as a tree linked by parent. Blocks whose
+ * parent isn't known yet are kept aside and linked as soon as it arrives. Every linked block also
+ * points to an ancestor at a lower height chosen like the skip list of bitcoin, so that the
+ * common ancestor of two branches is found in a logarithmic number of steps. Blocks below the
+ * solidified block are pruned.
+ */
+@Slf4j
 public class KhaosDatabase extends TronDatabase {
 
   private class KhaosBlock {
@@ -26,13 +38,46 @@ public class KhaosDatabase extends TronDatabase {
       this.blk = blk;
       this.id = blk.getBlockId();
       this.num = blk.getNum();
+      this.size = blk.getInstance().getSerializedSize();
     }
 
     BlockCapsule blk;
     KhaosBlock parent;
+    // an ancestor at getSkipNum(num), null if it isn't linked
+    KhaosBlock skip;
     BlockId id;
     Boolean invalid;
     long num;
+    long size;
+
+    /**
+     * Get the ancestor at a number, null if it isn't in the database.
+     */
+    KhaosBlock getAncestor(long ancestorNum) {
+      if (ancestorNum > num || ancestorNum < 0) {
+        return null;
+      }
+
+      KhaosBlock walk = this;
+      while (walk != null && walk.num > ancestorNum) {
+        long skipNum = getSkipNum(walk.num);
+        long prevSkipNum = getSkipNum(walk.num - 1);
+        if (walk.skip != null && (skipNum == ancestorNum || (skipNum > ancestorNum
+            && !(prevSkipNum < skipNum - 2 && prevSkipNum >= ancestorNum)))) {
+          walk = walk.skip;
+        } else {
+          walk = walk.parent;
+        }
+      }
+      return walk;
+    }
+
+    void link(KhaosBlock parent) {
+      this.parent = parent;
+      long skipNum = getSkipNum(num);
+      // never point to a pruned block
+      this.skip = skipNum >= miniStore.getMinNum() ? parent.getAncestor(skipNum) : null;
+    }
 
     @Override
     public boolean equals(Object o) {
@@ -56,47 +101,47 @@ public class KhaosDatabase extends TronDatabase {
   private class KhaosStore {
 
     private HashMap<BlockId, KhaosBlock> hashKblkMap = new HashMap<>();
-    //private HashMap<Sha256Hash, KhaosBlock> parentHashKblkMap = new HashMap<>();
-    private int maxCapcity = 1024;
-
-    private LinkedHashMap<Long, ArrayList<KhaosBlock>> numKblkMap =
-        new LinkedHashMap<Long, ArrayList<KhaosBlock>>() {
-
-          @Override
-          protected boolean removeEldestEntry(Map.Entry<Long, ArrayList<KhaosBlock>> entry) {
-            if (size() > maxCapcity) {
-              entry.getValue().forEach(b -> hashKblkMap.remove(b.id));
-              return true;
-            }
-            return false;
-          }
-        };
-
-
-    public void setMaxCapcity(int maxCapcity) {
-      this.maxCapcity = maxCapcity;
-    }
+    private TreeMap<Long, ArrayList<KhaosBlock>> numKblkMap = new TreeMap<>();
+    // serialized size of the blocks
+    private long size = 0;
 
     public void insert(KhaosBlock block) {
       hashKblkMap.put(block.id, block);
       numKblkMap.computeIfAbsent(block.num, listBlk -> new ArrayList<>())
-                .add(block);
-    }
-
-    public boolean remove(Sha256Hash hash) {
-      KhaosBlock block = this.hashKblkMap.get(hash);
-      //Sha256Hash parentHash = Sha256Hash.ZERO_HASH;
-      if (block != null) {
-        long num = block.num;
-        //parentHash = block.getParentHash();
-        ArrayList<KhaosBlock> listBlk = numKblkMap.get(num);
-        if (listBlk != null) {
-          listBlk.removeIf(b -> b.id == hash);
+          .add(block);
+      size += block.size;
+    }
+
+    public KhaosBlock remove(Sha256Hash hash) {
+      KhaosBlock block = this.hashKblkMap.remove(hash);
+      if (block == null) {
+        return null;
+      }
+
+      ArrayList<KhaosBlock> listBlk = numKblkMap.get(block.num);
+      if (listBlk != null) {
+        listBlk.remove(block);
+        if (listBlk.isEmpty()) {
+          numKblkMap.remove(block.num);
         }
-        this.hashKblkMap.remove(hash);
-        return true;
       }
-      return false;
+      size -= block.size;
+      return block;
+    }
+
+    /**
+     * Remove the blocks below a number.
+     */
+    public List<KhaosBlock> removeBelow(long num) {
+      List<KhaosBlock> removed = new ArrayList<>();
+      NavigableMap<Long, ArrayList<KhaosBlock>> below = numKblkMap.headMap(num, false);
+      below.values().forEach(listBlk -> listBlk.forEach(block -> {
+        hashKblkMap.remove(block.id);
+        size -= block.size;
+        removed.add(block);
+      }));
+      below.clear();
+      return removed;
     }
 
     public List<KhaosBlock> getBlockByNum(Long num) {
@@ -106,14 +151,30 @@ public class KhaosDatabase extends TronDatabase {
     public KhaosBlock getByHash(Sha256Hash hash) {
       return hashKblkMap.get(hash);
     }
+
+    public boolean isEmpty() {
+      return hashKblkMap.isEmpty();
+    }
+
+    public long getMinNum() {
+      return numKblkMap.isEmpty() ? -1 : numKblkMap.firstKey();
+    }
   }
 
+  // heights kept below the head when the solidified block doesn't move
+  private int maxCapacity = 1024;
+  // serialized size of the unlinked blocks, the lowest ones are dropped beyond it
+  private long maxUnlinkedSize = 64 * 1024 * 1024;
+
   private KhaosBlock head;
 
   private KhaosStore miniStore = new KhaosStore();
 
   private KhaosStore miniUnlinkedStore = new KhaosStore();
 
+  // the unlinked blocks by the hash of their parent
+  private Map<Sha256Hash, List<KhaosBlock>> unlinkedByParent = new HashMap<>();
+
   protected KhaosDatabase(String dbName) {
     super(dbName);
   }
@@ -138,71 +199,189 @@ public class KhaosDatabase extends TronDatabase {
     return false;
   }
 
+  /**
+   * The number of the ancestor a block at a number points to, such that any ancestor is reached
+   * in a logarithmic number of steps.
+   */
+  static long getSkipNum(long num) {
+    if (num < 2) {
+      return 0;
+    }
+    return (num & 1) == 0 ? invertLowestOne(num)
+        : invertLowestOne(invertLowestOne(num - 1)) + 1;
+  }
 
-  void start(BlockCapsule blk) {
+  private static long invertLowestOne(long n) {
+    return n & (n - 1);
+  }
+
+  void setMaxCapacity(int maxCapacity) {
+    this.maxCapacity = maxCapacity;
+  }
+
+  void setMaxUnlinkedSize(long maxUnlinkedSize) {
+    this.maxUnlinkedSize = maxUnlinkedSize;
+  }
+
+  synchronized void start(BlockCapsule blk) {
     this.head = new KhaosBlock(blk);
     miniStore.insert(this.head);
   }
 
-  void setHead(KhaosBlock blk) {
+  synchronized void setHead(KhaosBlock blk) {
     this.head = blk;
   }
 
-  void removeBlk(Sha256Hash hash) {
-    if (!miniStore.remove(hash)) {
-      miniUnlinkedStore.remove(hash);
+  synchronized void removeBlk(Sha256Hash hash) {
+    KhaosBlock block = miniStore.remove(hash);
+    if (block != null) {
+      if (block == head && block.parent != null) {
+        head = block.parent;
+      }
+      return;
+    }
+
+    block = miniUnlinkedStore.remove(hash);
+    if (block != null) {
+      removeUnlinkedByParent(block);
     }
   }
 
   /**
    * check if the id is contained in the KhoasDB.
    */
-  public Boolean containBlock(Sha256Hash hash) {
+  public synchronized Boolean containBlock(Sha256Hash hash) {
     return miniStore.getByHash(hash) != null || miniUnlinkedStore.getByHash(hash) != null;
   }
 
   /**
    * Get the Block form KhoasDB, if it doesn't exist ,return null.
    */
-  public BlockCapsule getBlock(Sha256Hash hash) {
+  public synchronized BlockCapsule getBlock(Sha256Hash hash) {
     return Stream.of(miniStore.getByHash(hash), miniUnlinkedStore.getByHash(hash))
-            .filter(Objects::nonNull)
-            .map(block -> block.blk)
-            .findFirst()
-            .orElse(null);
+        .filter(Objects::nonNull)
+        .map(block -> block.blk)
+        .findFirst()
+        .orElse(null);
   }
 
   /**
-   * Push the block in the KhoasDB.
+   * Push the block in the KhoasDB, the unlinked blocks descending from it are linked with it.
+   * Return the head, the highest linked block.
    */
-  public BlockCapsule push(BlockCapsule blk) throws UnLinkedBlockException {
+  public synchronized BlockCapsule push(BlockCapsule blk) throws UnLinkedBlockException {
+    if (miniStore.getByHash(blk.getBlockId()) != null) {
+      return head.blk;
+    }
+
     KhaosBlock block = new KhaosBlock(blk);
     if (head != null && block.getParentHash() != Sha256Hash.ZERO_HASH) {
       KhaosBlock kblock = miniStore.getByHash(block.getParentHash());
       if (kblock != null) {
-        block.parent = kblock;
+        block.link(kblock);
       } else {
-        miniUnlinkedStore.insert(block);
+        if (miniUnlinkedStore.getByHash(block.id) == null) {
+          miniUnlinkedStore.insert(block);
+          unlinkedByParent.computeIfAbsent(block.getParentHash(), h -> new ArrayList<>())
+              .add(block);
+          trimUnlinked();
+        }
         throw new UnLinkedBlockException();
       }
     }
 
     miniStore.insert(block);
-
     if (head == null || block.num > head.num) {
       head = block;
     }
+    linkDescendants(block);
+
+    if (head.num - miniStore.getMinNum() >= maxCapacity) {
+      prune(head.num - maxCapacity + 1);
+    }
     return head.blk;
   }
 
-  public BlockCapsule getHead() {
+  /**
+   * Link the unlinked blocks descending from a block which was just linked.
+   */
+  private void linkDescendants(KhaosBlock block) {
+    Deque<KhaosBlock> linked = new ArrayDeque<>();
+    linked.add(block);
+    while (!linked.isEmpty()) {
+      KhaosBlock parent = linked.poll();
+      List<KhaosBlock> children = unlinkedByParent.remove(parent.id);
+      if (children == null) {
+        continue;
+      }
+
+      for (KhaosBlock child : children) {
+        miniUnlinkedStore.remove(child.id);
+        child.link(parent);
+        miniStore.insert(child);
+        if (child.num > head.num) {
+          head = child;
+        }
+        linked.add(child);
+      }
+    }
+  }
+
+  /**
+   * Drop the blocks below a number, which can't be switched to any more. The unlinked ones up to
+   * it are dropped too, as their branch can't reach the main chain.
+   */
+  public synchronized void prune(long num) {
+    List<KhaosBlock> removed = miniStore.removeBelow(num);
+    // the parent and skip pointers below the number are never followed any more
+    removed.forEach(block -> {
+      block.parent = null;
+      block.skip = null;
+    });
+    // nor are the skip pointers of the blocks left which reach below it, drop them so they don't
+    // keep the pruned blocks alive
+    if (!removed.isEmpty()) {
+      miniStore.hashKblkMap.values().stream()
+          .filter(block -> block.skip != null && block.skip.num < num)
+          .forEach(block -> block.skip = null);
+    }
+
+    miniUnlinkedStore.removeBelow(num + 1).forEach(this::removeUnlinkedByParent);
+
+    if (!removed.isEmpty()) {
+      logger.debug("prune khaos blocks below {}, {} blocks of {} bytes left, {} unlinked",
+          num, miniStore.hashKblkMap.size(), getSize(), miniUnlinkedStore.hashKblkMap.size());
+    }
+  }
+
+  private void trimUnlinked() {
+    while (miniUnlinkedStore.size > maxUnlinkedSize) {
+      long lowest = miniUnlinkedStore.getMinNum();
+      new ArrayList<>(miniUnlinkedStore.getBlockByNum(lowest)).forEach(block -> {
+        miniUnlinkedStore.remove(block.id);
+        removeUnlinkedByParent(block);
+      });
+    }
+  }
+
+  private void removeUnlinkedByParent(KhaosBlock block) {
+    List<KhaosBlock> siblings = unlinkedByParent.get(block.getParentHash());
+    if (siblings != null) {
+      siblings.remove(block);
+      if (siblings.isEmpty()) {
+        unlinkedByParent.remove(block.getParentHash());
+      }
+    }
+  }
+
+  public synchronized BlockCapsule getHead() {
     return head.blk;
   }
 
   /**
    * pop the head block then remove it.
    */
-  public boolean pop() {
+  public synchronized boolean pop() {
     KhaosBlock prev = head.parent;
     if (prev != null) {
       head = prev;
@@ -214,26 +393,21 @@ public class KhaosDatabase extends TronDatabase {
   /**
    * Find two block's most recent common parent block.
    */
-  public Pair<LinkedList<BlockCapsule>, LinkedList<BlockCapsule>> getBranch(BlockId block1,
-      BlockId block2) {
+  public synchronized Pair<LinkedList<BlockCapsule>, LinkedList<BlockCapsule>> getBranch(
+      BlockId block1, BlockId block2) {
     LinkedList<BlockCapsule> list1 = new LinkedList<>();
     LinkedList<BlockCapsule> list2 = new LinkedList<>();
     KhaosBlock kblk1 = miniStore.getByHash(block1);
     KhaosBlock kblk2 = miniStore.getByHash(block2);
 
     if (kblk1 != null && kblk2 != null) {
-      while (!Objects.equals(kblk1, kblk2)) {
-        if (kblk1.num > kblk2.num) {
-          list1.add(kblk1.blk);
-          kblk1 = kblk1.parent;
-        } else if (kblk1.num < kblk2.num) {
-          list2.add(kblk2.blk);
-          kblk2 = kblk2.parent;
-        } else {
-          list1.add(kblk1.blk);
-          list2.add(kblk2.blk);
-          kblk1 = kblk1.parent;
-          kblk2 = kblk2.parent;
+      KhaosBlock ancestor = getCommonAncestor(kblk1, kblk2);
+      if (ancestor != null) {
+        for (KhaosBlock kblk = kblk1; !kblk.equals(ancestor); kblk = kblk.parent) {
+          list1.add(kblk.blk);
+        }
+        for (KhaosBlock kblk = kblk2; !kblk.equals(ancestor); kblk = kblk.parent) {
+          list2.add(kblk.blk);
         }
       }
     }
@@ -241,7 +415,43 @@ public class KhaosDatabase extends TronDatabase {
     return new Pair<>(list1, list2);
   }
 
-  public boolean hasData() {
-    return !this.miniStore.hashKblkMap.isEmpty();
+  /**
+   * Find the most recent common ancestor of two blocks, following the skip pointers while they
+   * are still on different branches.
+   */
+  private KhaosBlock getCommonAncestor(KhaosBlock kblk1, KhaosBlock kblk2) {
+    long num = Math.min(kblk1.num, kblk2.num);
+    kblk1 = kblk1.getAncestor(num);
+    kblk2 = kblk2.getAncestor(num);
+
+    while (kblk1 != null && kblk2 != null && !kblk1.equals(kblk2)) {
+      // both blocks are at the same number, so are their skip ancestors
+      if (kblk1.skip != null && kblk2.skip != null && !kblk1.skip.equals(kblk2.skip)) {
+        kblk1 = kblk1.skip;
+        kblk2 = kblk2.skip;
+      } else {
+        kblk1 = kblk1.parent;
+        kblk2 = kblk2.parent;
+      }
+    }
+    return kblk1 != null && kblk2 != null ? kblk1 : null;
+  }
+
+  public synchronized boolean hasData() {
+    return !this.miniStore.isEmpty();
+  }
+
+  /**
+   * Get the serialized size of the linked blocks.
+   */
+  public synchronized long getSize() {
+    return miniStore.size;
+  }
+
+  /**
+   * Get the serialized size of the blocks waiting for their parent.
+   */
+  public synchronized long getUnlinkedSize() {
+    return miniUnlinkedStore.size;
   }
 }
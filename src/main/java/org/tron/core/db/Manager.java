@@ -5,34 +5,34 @@ import static org.tron.core.config.Parameter.ChainConstant.WITNESS_PAY_PER_BLOCK
 import static org.tron.protos.Protocol.Transaction.Contract.ContractType.TransferAssetContract;
 import static org.tron.protos.Protocol.Transaction.Contract.ContractType.TransferContract;
 
-import com.carrotsearch.sizeof.RamUsageEstimator;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.protobuf.ByteString;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javafx.util.Pair;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.ArrayUtils;
 import org.joda.time.DateTime;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.tron.common.crypto.ECKey;
 import org.tron.common.overlay.discover.Node;
-import org.tron.common.storage.leveldb.LevelDbDataSourceImpl;
 import org.tron.common.utils.ByteArray;
 import org.tron.common.utils.DialogOptional;
 import org.tron.common.utils.RandomGenerator;
@@ -41,15 +41,18 @@ import org.tron.common.utils.Time;
 import org.tron.core.actuator.Actuator;
 import org.tron.core.actuator.ActuatorFactory;
 import org.tron.core.capsule.AccountCapsule;
+import org.tron.core.capsule.AssetIssueCapsule;
 import org.tron.core.capsule.BlockCapsule;
 import org.tron.core.capsule.BlockCapsule.BlockId;
 import org.tron.core.capsule.TransactionCapsule;
 import org.tron.core.capsule.TransactionResultCapsule;
 import org.tron.core.capsule.WitnessCapsule;
 import org.tron.core.capsule.utils.BlockUtil;
+import org.tron.core.capsule.utils.SignatureVerifier;
 import org.tron.core.config.args.Args;
 import org.tron.core.config.args.GenesisBlock;
 import org.tron.core.db.AbstractRevokingStore.Dialog;
+import org.tron.core.db.BlockIndexStore.BlockIndex;
 import org.tron.core.exception.BalanceInsufficientException;
 import org.tron.core.exception.ContractExeException;
 import org.tron.core.exception.ContractValidateException;
@@ -67,6 +70,9 @@ public class Manager {
   private static final long BLOCK_INTERVAL_SEC = 1;
   private static final int MAX_ACTIVE_WITNESS_NUM = 21;
   private static final long TRXS_SIZE = 2_000_000; // < 2MiB
+  // ms, packing stops after it, well within the PRODUCE_TIME_OUT of the witness service
+  private static final long PACK_TIME_BUDGET = 200;
+  private static final int ARCHIVE_BATCH_SIZE = 1000;
   public static final long LOOP_INTERVAL = 5000L; // ms,produce block period, must be divisible by 60. millisecond
 
   private AccountStore accountStore;
@@ -75,17 +81,22 @@ public class Manager {
   private UtxoStore utxoStore;
   private WitnessStore witnessStore;
   private AssetIssueStore assetIssueStore;
+  private AssetIssueIndexStore assetIssueIndexStore;
   private DynamicPropertiesStore dynamicPropertiesStore;
+  private WitnessVoteStore witnessVoteStore;
+  private BlockIndexStore blockIndexStore;
+  // null unless the transaction history is enabled
+  private TransactionHistoryStore transactionHistoryStore;
+  private BlockLog blockLog;
 
   @Autowired
   private PeersStore peersStore;
   private BlockCapsule genesisBlock;
 
-
-  private LevelDbDataSourceImpl numHashCache;
   private KhaosDatabase khaosDb;
   @Getter
   private BlockCapsule head;
+  @Getter
   private RevokingDatabase revokingStore;
   @Getter
   private DialogOptional<Dialog> dialog = DialogOptional.empty();
@@ -119,7 +130,7 @@ public class Manager {
     this.dynamicPropertiesStore = dynamicPropertiesStore;
   }
 
-  public List<TransactionCapsule> getPendingTransactions() {
+  public TransactionPool getPendingTransactions() {
     return this.pendingTransactions;
   }
 
@@ -127,13 +138,20 @@ public class Manager {
     return this.popedTransactions;
   }
 
+  Set<ByteString> getTouchedSenders() {
+    return this.touchedSenders;
+  }
+
 
   // transactions cache
-  private List<TransactionCapsule> pendingTransactions;
+  private TransactionPool pendingTransactions;
 
   // transactions popped
   private List<TransactionCapsule> popedTransactions = new ArrayList<>();
 
+  // senders of the transactions in the blocks applied since the pending state was reset
+  private Set<ByteString> touchedSenders = new HashSet<>();
+
   private volatile List<WitnessCapsule> wits = new ArrayList<>();
 
   private ReadWriteLock witsLock = new ReentrantReadWriteLock();
@@ -251,6 +269,11 @@ public class Manager {
     getWitnessStore().destory();
     getAssetIssueStore().destroy();
     getDynamicPropertiesStore().destroy();
+    WitnessVoteStore.destroy();
+    BlockIndexStore.destroy();
+    AssetIssueIndexStore.destroy();
+    TransactionHistoryStore.destroy();
+    blockLog.close();
   }
 
   /**
@@ -263,15 +286,26 @@ public class Manager {
     this.setUtxoStore(UtxoStore.create("utxo"));
     this.setWitnessStore(WitnessStore.create("witness"));
     this.setAssetIssueStore(AssetIssueStore.create("asset-issue"));
+    this.setAssetIssueIndexStore(AssetIssueIndexStore.create("asset-issue-index"));
     this.setDynamicPropertiesStore(DynamicPropertiesStore.create("properties"));
+    this.setWitnessVoteStore(WitnessVoteStore.create("witness-vote"));
+    this.accountStore.setWitnessVoteStore(this.witnessVoteStore);
+    this.setBlockIndexStore(BlockIndexStore.create("block-index"));
+    if (Args.getInstance().getStorage().isTransactionHistory()) {
+      this.setTransactionHistoryStore(TransactionHistoryStore.create("trans-history"));
+    }
 
     revokingStore = RevokingStore.getInstance();
     revokingStore.enable();
-    this.numHashCache = new LevelDbDataSourceImpl(
-        Args.getInstance().getOutputDirectory(), "block" + "_NUM_HASH");
-    this.numHashCache.initDB();
+    this.blockLog = new BlockLog(Args.getInstance().getOutputDirectory(), "block_LOG");
+    this.blockLog.open();
     this.khaosDb = new KhaosDatabase("block" + "_KDB");
-    this.pendingTransactions = new ArrayList<>();
+    this.pendingTransactions = new TransactionPool();
+    this.initBlockIndex();
+    this.initAssetIssueIndex();
+    this.initTotalTransactionCount();
+    // before any account write, which moves the tally
+    this.initWitnessVote();
     this.initGenesis();
     this.updateWits();
     this.setShuffledWitnessStates(getWitnesses());
@@ -305,16 +339,12 @@ public class Manager {
 
         //this.pushBlock(this.genesisBlock);
         blockStore.put(this.genesisBlock.getBlockId().getBytes(), this.genesisBlock);
-        this.numHashCache.putData(ByteArray.fromLong(this.genesisBlock.getNum()),
-            this.genesisBlock.getBlockId().getBytes());
+        blockIndexStore.put(this.genesisBlock);
         //refreshHead(newBlock);
         logger.info("save block: " + this.genesisBlock);
 
-        this.dynamicPropertiesStore.saveLatestBlockHeaderNumber(0);
-        this.dynamicPropertiesStore.saveLatestBlockHeaderHash(
+        this.dynamicPropertiesStore.saveLatestBlockHeader(0, this.genesisBlock.getTimeStamp(),
             this.genesisBlock.getBlockId().getByteString());
-        this.dynamicPropertiesStore.saveLatestBlockHeaderTimestamp(
-            this.genesisBlock.getTimeStamp());
         this.initAccount();
         this.initWitness();
 
@@ -322,6 +352,45 @@ public class Manager {
     }
   }
 
+  /**
+   * Index the stored blocks if the index is empty, for stores written by older versions.
+   */
+  private void initBlockIndex() {
+    if (!this.blockIndexStore.isEmpty()) {
+      return;
+    }
+    try (Stream<BlockCapsule> blocks = this.blockStore.getBlockStream()) {
+      blocks.forEach(this.blockIndexStore::put);
+    }
+  }
+
+  private void initAssetIssueIndex() {
+    if (!this.assetIssueIndexStore.isEmpty()) {
+      return;
+    }
+    try (Stream<AssetIssueCapsule> assetIssues = this.assetIssueStore.getAssetIssueStream()) {
+      assetIssues.forEach(this.assetIssueIndexStore::put);
+    }
+  }
+
+  private void initTotalTransactionCount() {
+    if (!this.dynamicPropertiesStore.hasTotalTransactionCount()) {
+      this.dynamicPropertiesStore.saveTotalTransactionCount(
+          this.transactionStore.getTotalTransactions());
+    }
+  }
+
+  /**
+   * Build the vote tally of a database created before it was kept, with a last full scan.
+   */
+  private void initWitnessVote() {
+    if (!this.witnessVoteStore.isEmpty()) {
+      return;
+    }
+    countVoteByAccounts().forEach((address, voteCount) ->
+        this.witnessVoteStore.addVoteCount(address.toByteArray(), voteCount));
+  }
+
   /**
    * save account into database.
    */
@@ -393,35 +462,93 @@ public class Manager {
       throws ValidateSignatureException, ContractValidateException,
       ContractExeException, HighFreqException {
     logger.info("push transaction");
+    if (pendingTransactions.contains(trx.getTransactionId())) {
+      logger.info("transaction {} is already pending", trx.getTransactionId());
+      return false;
+    }
+
     if (!trx.validateSignature()) {
       throw new ValidateSignatureException("trans sig validate failed");
     }
 
     validateFreq(trx);
 
+    long fee = calcFee(trx);
+    if (!pendingTransactions.canAdd(fee)) {
+      logger.info("pending pool is full, transaction {} is dropped", trx.getTransactionId());
+      return false;
+    }
+
+    // the earlier transactions of the same senders go first
+    applyPendingTransactions(TransactionPool.getSenders(trx));
+    applyPendingTransaction(trx);
+    pendingTransactions.add(trx, fee);
+    return true;
+  }
+
+  /**
+   * Apply the pending transactions of the senders which aren't on the pending state yet, the
+   * ones which aren't valid anymore are evicted.
+   */
+  synchronized void applyPendingTransactions(Collection<ByteString> senders) {
+    List<TransactionCapsule> transactions = pendingTransactions.takeUnapplied(senders);
+    SignatureVerifier.preVerify(transactions);
+    transactions.forEach(trx -> {
+      try {
+        applyPendingTransaction(trx);
+      } catch (ValidateSignatureException | ContractValidateException
+          | ContractExeException e) {
+        logger.debug(e.getMessage(), e);
+        pendingTransactions.remove(trx.getTransactionId());
+      }
+    });
+  }
+
+  /**
+   * Evict the transactions a block included from the pending pool and remember their senders,
+   * whose other pending transactions have to be validated again.
+   */
+  private void evictIncluded(BlockCapsule block) {
+    pendingTransactions.removeAll(block.getTransactions());
+    block.getTransactions()
+        .forEach(trx -> touchedSenders.addAll(TransactionPool.getSenders(trx)));
+  }
+
+  /**
+   * Get the fee a transaction pays, used to prioritize the pending transactions.
+   */
+  long calcFee(final TransactionCapsule trx) {
+    return ActuatorFactory.createActuator(trx, this).stream()
+        .filter(Objects::nonNull)
+        .mapToLong(Actuator::calcFee)
+        .sum();
+  }
+
+  /**
+   * Apply a pending transaction on top of the pending state.
+   */
+  synchronized void applyPendingTransaction(final TransactionCapsule trx)
+      throws ValidateSignatureException, ContractValidateException, ContractExeException {
     if (!dialog.valid()) {
       dialog = DialogOptional.of(revokingStore.buildDialog());
     }
 
-    try (
-        RevokingStore.Dialog tmpDialog = revokingStore.buildDialog()) {
+    try (Dialog tmpDialog = revokingStore.buildDialog()) {
       processTransaction(trx);
-      pendingTransactions.add(trx);
-
       tmpDialog.merge();
     } catch (RevokingStoreIllegalStateException e) {
       logger.debug(e.getMessage(), e);
     }
-    return true;
   }
 
   void validateFreq(TransactionCapsule trx) throws HighFreqException {
     List<org.tron.protos.Protocol.Transaction.Contract> contracts = trx.getInstance().getRawData()
         .getContractList();
-    for (Transaction.Contract contract : contracts) {
+    for (int i = 0; i < contracts.size(); i++) {
+      Transaction.Contract contract = contracts.get(i);
       if (contract.getType() == TransferContract
           || contract.getType() == TransferAssetContract) {
-        byte[] address = TransactionCapsule.getOwner(contract);
+        byte[] address = trx.getOwners().get(i);
         AccountCapsule accountCapsule = this.getAccountStore().get(address);
         long balacne = accountCapsule.getBalance();
         long latestOperationTime = accountCapsule.getLatestOperationTime();
@@ -451,10 +578,10 @@ public class Manager {
    */
   private void eraseBlock() {
     dialog.reset();
-    BlockCapsule oldHeadBlock = getBlockStore().get(head.getBlockId().getBytes());
+    BlockCapsule oldHeadBlock = getBlockById(head.getBlockId());
     try {
       revokingStore.pop();
-      head = getBlockStore().get(getBlockIdByNum(oldHeadBlock.getNum() - 1).getBytes());
+      head = getBlockById(getBlockIdByNum(oldHeadBlock.getNum() - 1));
     } catch (RevokingStoreIllegalStateException e) {
       logger.debug(e.getMessage(), e);
     }
@@ -483,10 +610,10 @@ public class Manager {
         try (Dialog tmpDialog = revokingStore.buildDialog()) {
           processBlock(item);
           blockStore.put(item.getBlockId().getBytes(), item);
-          this.numHashCache
-              .putData(ByteArray.fromLong(item.getNum()), item.getBlockId().getBytes());
+          blockIndexStore.put(item);
           tmpDialog.commit();
           head = item;
+          evictIncluded(item);
         } catch (ValidateSignatureException e) {
           logger.debug(e.getMessage(), e);
         } catch (ContractValidateException e) {
@@ -537,13 +664,13 @@ public class Manager {
   /**
    * save a block.
    */
-  public void pushBlock(final BlockCapsule block)
+  public synchronized void pushBlock(final BlockCapsule block)
       throws ValidateSignatureException, ContractValidateException,
       ContractExeException, UnLinkedBlockException {
 
     try (PendingManager pm = new PendingManager(this)) {
       //todo: check block's validity
-      if (!block.generatedByMyself) {
+      if (!block.generatedByMyself && !block.isVerified()) {
         if (!block.validateSignature()) {
           logger.info("The siganature is not validated.");
           //TODO: throw exception here.
@@ -556,6 +683,8 @@ public class Manager {
           // TODO:throw exception here.
           return;
         }
+
+        SignatureVerifier.verify(block.getTransactions());
       }
       try {
         validateWitnessSchedule(block); // direct return ,need test
@@ -583,12 +712,13 @@ public class Manager {
         try (Dialog tmpDialog = revokingStore.buildDialog()) {
           this.processBlock(newBlock);
           tmpDialog.commit();
+          evictIncluded(newBlock);
         } catch (RevokingStoreIllegalStateException e) {
           logger.debug(e.getMessage(), e);
         }
       }
       blockStore.put(block.getBlockId().getBytes(), block);
-      this.numHashCache.putData(ByteArray.fromLong(block.getNum()), block.getBlockId().getBytes());
+      blockIndexStore.put(block);
       //refreshHead(newBlock);
       logger.info("save block: " + newBlock);
     }
@@ -610,20 +740,16 @@ public class Manager {
     }
     this.head = block;
     logger.info("update head, num = {}", block.getNum());
-    this.dynamicPropertiesStore
-        .saveLatestBlockHeaderHash(block.getBlockId().getByteString());
-    this.dynamicPropertiesStore.saveLatestBlockHeaderNumber(block.getNum());
-    this.dynamicPropertiesStore.saveLatestBlockHeaderTimestamp(block.getTimeStamp());
+    this.dynamicPropertiesStore.saveLatestBlockHeader(block.getNum(), block.getTimeStamp(),
+        block.getBlockId().getByteString());
     updateWitnessSchedule();
   }
 
   @Deprecated
   private void refreshHead(BlockCapsule block) {
     this.head = block;
-    this.dynamicPropertiesStore
-        .saveLatestBlockHeaderHash(block.getBlockId().getByteString());
-    this.dynamicPropertiesStore.saveLatestBlockHeaderNumber(block.getNum());
-    this.dynamicPropertiesStore.saveLatestBlockHeaderTimestamp(block.getTimeStamp());
+    this.dynamicPropertiesStore.saveLatestBlockHeader(block.getNum(), block.getTimeStamp(),
+        block.getBlockId().getByteString());
     updateWitnessSchedule();
   }
 
@@ -646,11 +772,11 @@ public class Manager {
    */
   public boolean containBlock(final Sha256Hash blockHash) {
     return this.khaosDb.containBlock(blockHash)
-        || blockStore.get(blockHash.getBytes()) != null;
+        || blockIndexStore.hasBlock(blockHash);
   }
 
   public boolean containBlockInMainChain(BlockId blockId) {
-    return blockStore.get(blockId.getBytes()) != null;
+    return blockIndexStore.hasBlock(blockId);
   }
 
   /**
@@ -658,7 +784,7 @@ public class Manager {
    */
   public byte[] findBlockByHash(final Sha256Hash hash) {
     return this.khaosDb.containBlock(hash) ? this.khaosDb.getBlock(hash).getData()
-        : blockStore.get(hash.getBytes()).getData();
+        : getStoredBlockData(hash);
   }
 
   /**
@@ -666,8 +792,31 @@ public class Manager {
    */
 
   public BlockCapsule getBlockById(final Sha256Hash hash) {
-    return this.khaosDb.containBlock(hash) ? this.khaosDb.getBlock(hash)
-        : blockStore.get(hash.getBytes());
+    if (this.khaosDb.containBlock(hash)) {
+      return this.khaosDb.getBlock(hash);
+    }
+    final byte[] data = getStoredBlockData(hash);
+    return data == null ? null : new BlockCapsule(data);
+  }
+
+  /**
+   * Get a stored block, from the block store or, once it is solidified, from the block log.
+   */
+  private byte[] getStoredBlockData(final Sha256Hash hash) {
+    final byte[] data = blockStore.getBlockData(hash.getBytes());
+    if (data != null) {
+      return data;
+    }
+    final BlockIndex blockIndex = blockIndexStore.getBlockIndex(hash);
+    return blockIndex == null ? null : blockLog.get(blockIndex.getNum());
+  }
+
+  /**
+   * Get the header of a block by id without loading its body, null if it is unknown.
+   */
+  public BlockIndex getBlockHeader(final Sha256Hash hash) {
+    final BlockCapsule block = this.khaosDb.getBlock(hash);
+    return block != null ? new BlockIndex(block) : blockIndexStore.getBlockIndex(hash);
   }
 
   /**
@@ -678,7 +827,7 @@ public class Manager {
     final BlockCapsule block = this.getBlockById(blockHash);
     this.khaosDb.removeBlk(blockHash);
     blockStore.delete(blockHash.getBytes());
-    this.numHashCache.deleteData(ByteArray.fromLong(block.getNum()));
+    blockIndexStore.delete(block.getBlockId());
     this.head = this.khaosDb.getHead();
   }
 
@@ -686,7 +835,7 @@ public class Manager {
    * judge has blocks.
    */
   public boolean hasBlocks() {
-    return blockStore.dbSource.allKeys().size() > 0 || this.khaosDb.hasData();
+    return !blockStore.isEmpty() || !blockLog.isEmpty() || this.khaosDb.hasData();
   }
 
   /**
@@ -708,7 +857,12 @@ public class Manager {
       act.execute(ret);
       trxCap.setResult(ret);
     }
-    transactionStore.put(trxCap.getTransactionId().getBytes(), trxCap);
+    byte[] trxId = trxCap.getTransactionId().getBytes();
+    if (transactionStore.findTransactionByHash(trxId) == null) {
+      dynamicPropertiesStore.saveTotalTransactionCount(
+          dynamicPropertiesStore.getTotalTransactionCount() + 1);
+    }
+    transactionStore.put(trxId, trxCap);
     return true;
   }
 
@@ -716,10 +870,8 @@ public class Manager {
    * Get the block id from the number.
    */
   public BlockId getBlockIdByNum(final long num) {
-    final byte[] hash = this.numHashCache.getData(ByteArray.fromLong(num));
-    return ArrayUtils.isEmpty(hash)
-        ? this.genesisBlock.getBlockId()
-        : new BlockId(Sha256Hash.wrap(hash), num);
+    final BlockId blockId = blockIndexStore.getBlockId(num);
+    return blockId == null ? this.genesisBlock.getBlockId() : blockId;
   }
 
   /**
@@ -730,9 +882,8 @@ public class Manager {
       return this.khaosDb.getBlock(hash).getNum();
     }
 
-    //TODO: optimize here
-    final byte[] blockByte = blockStore.get(hash.getBytes()).getData();
-    return ArrayUtils.isNotEmpty(blockByte) ? new BlockCapsule(blockByte).getNum() : 0;
+    final BlockIndex blockIndex = blockIndexStore.getBlockIndex(hash);
+    return blockIndex == null ? 0 : blockIndex.getNum();
   }
 
 
@@ -766,12 +917,19 @@ public class Manager {
     dialog.reset();
     dialog = DialogOptional.of(revokingStore.buildDialog());
 
-    Iterator iterator = pendingTransactions.iterator();
-    while (iterator.hasNext()) {
-      TransactionCapsule trx = (TransactionCapsule) iterator.next();
-      currentTrxSize += RamUsageEstimator.sizeOf(trx);
+    final long deadline = System.currentTimeMillis() + PACK_TIME_BUDGET;
+    List<TransactionCapsule> transactions = pendingTransactions.getPrioritized();
+    for (int i = 0; i < transactions.size(); i++) {
+      if (System.currentTimeMillis() > deadline) {
+        logger.info("packing time budget exhausted");
+        postponedTrxCount += transactions.size() - i;
+        break;
+      }
+
+      TransactionCapsule trx = transactions.get(i);
+      int trxSize = trx.getInstance().getSerializedSize();
       // judge block size
-      if (currentTrxSize > TRXS_SIZE) {
+      if (currentTrxSize + trxSize > TRXS_SIZE) {
         postponedTrxCount++;
         continue;
       }
@@ -781,13 +939,17 @@ public class Manager {
         tmpDialog.merge();
         // push into block
         blockCapsule.addTransaction(trx);
-        iterator.remove();
+        currentTrxSize += trxSize;
+        pendingTransactions.remove(trx.getTransactionId());
       } catch (ContractExeException e) {
         logger.info("contract not processed during execute");
         logger.debug(e.getMessage(), e);
+        // it would fail again in every next block
+        pendingTransactions.remove(trx.getTransactionId());
       } catch (ContractValidateException e) {
         logger.info("contract not processed during validate");
         logger.debug(e.getMessage(), e);
+        pendingTransactions.remove(trx.getTransactionId());
       } catch (RevokingStoreIllegalStateException e) {
         logger.debug(e.getMessage(), e);
       }
@@ -796,7 +958,7 @@ public class Manager {
     dialog.reset();
 
     if (postponedTrxCount > 0) {
-      logger.info("{} transactions over the block size limit", postponedTrxCount);
+      logger.info("{} transactions over the block size limit or time budget", postponedTrxCount);
     }
 
     logger.info(
@@ -845,6 +1007,9 @@ public class Manager {
     for (TransactionCapsule transactionCapsule : block.getTransactions()) {
       processTransaction(transactionCapsule);
     }
+    if (this.transactionHistoryStore != null) {
+      this.transactionHistoryStore.put(block);
+    }
 
     // todo set reverking db max size.
     this.updateDynamicProperties(block);
@@ -880,6 +1045,36 @@ public class Manager {
     long latestSolidifiedBlockNum = numbers.get(solidifiedPosition);
 
     getDynamicPropertiesStore().saveLatestSolidifiedBlockNum(latestSolidifiedBlockNum);
+    // blocks up to the solidified one can't be switched out any more
+    revokingStore.setMaxSize((int) Math.max(0, getHeadBlockNum() - latestSolidifiedBlockNum));
+    khaosDb.prune(latestSolidifiedBlockNum);
+    archiveSolidifiedBlocks(latestSolidifiedBlockNum);
+  }
+
+  /**
+   * Move the solidified blocks from the block store to the block log, at most a batch at a time
+   * so that an existing block store is moved over gradually.
+   */
+  private void archiveSolidifiedBlocks(long latestSolidifiedBlockNum) {
+    long num = blockLog.isEmpty() ? 0 : blockLog.getLastNum() + 1;
+    final long last = Math.min(latestSolidifiedBlockNum, num + ARCHIVE_BATCH_SIZE - 1);
+    final List<BlockId> archived = new ArrayList<>();
+    for (; num <= last; num++) {
+      final BlockId blockId = blockIndexStore.getBlockId(num);
+      final byte[] data = blockId == null ? null : blockStore.getBlockData(blockId.getBytes());
+      if (data == null) {
+        break;
+      }
+      blockLog.append(num, data);
+      archived.add(blockId);
+    }
+
+    if (!archived.isEmpty()) {
+      blockLog.flush();
+      // the log can't be revoked, neither can the deletes
+      archived.forEach(blockId -> blockStore.purge(blockId.getBytes()));
+      logger.info("archive {} solidified blocks, up to {}", archived.size(), num - 1);
+    }
   }
 
   /**
@@ -997,37 +1192,12 @@ public class Manager {
   public void updateWitness() {
     List<WitnessCapsule> currentWits = getWitnesses();
 
-    final Map<ByteString, Long> countWitness = Maps.newHashMap();
-    final List<AccountCapsule> accountList = this.accountStore.getAllAccounts();
-    //logger.info("there is account List size is {}", accountList.size());
-    accountList.forEach(account -> {
-//      logger.info("there is account ,account address is {}",
-//          account.createReadableString());
-
-      Optional<Long> sum = account.getVotesList().stream().map(vote -> vote.getVoteCount())
-          .reduce((a, b) -> a + b);
-      if (sum.isPresent()) {
-        if (sum.get() <= account.getShare()) {
-          account.getVotesList().forEach(vote -> {
-            //TODO validate witness //active_witness
-            ByteString voteAddress = vote.getVoteAddress();
-            long voteCount = vote.getVoteCount();
-            if (countWitness.containsKey(voteAddress)) {
-              countWitness.put(voteAddress, countWitness.get(voteAddress) + voteCount);
-            } else {
-              countWitness.put(voteAddress, voteCount);
-            }
-          });
-        } else {
-          logger.info(
-              "account" + account.createReadableString() + ",share[" + account.getShare()
-                  + "] > voteSum["
-                  + sum.get() + "]");
-        }
-      }
-    });
+    final Map<ByteString, Long> countWitness = this.witnessVoteStore.getAllVoteCounts();
 
     witnessStore.getAllWitnesses().forEach(witnessCapsule -> {
+      if (witnessCapsule.getVoteCount() == 0 && !witnessCapsule.getIsJobs()) {
+        return;
+      }
       witnessCapsule.setVoteCount(0);
       witnessCapsule.setIsJobs(false);
       this.witnessStore.put(witnessCapsule.createDbKey(), witnessCapsule);
@@ -1084,6 +1254,43 @@ public class Manager {
             getWitnesses()));
   }
 
+  /**
+   * Sum the votes of every account by witness address, skipping accounts which vote more than
+   * their share. This is what the vote tally has to hold, see WitnessVoteStore#getCountedVotes.
+   */
+  public Map<ByteString, Long> countVoteByAccounts() {
+    final Map<ByteString, Long> countWitness = Maps.newHashMap();
+    try (Stream<AccountCapsule> accounts = this.accountStore.getAccountStream()) {
+      accounts.forEach(account -> {
+//        logger.info("there is account ,account address is {}",
+//            account.createReadableString());
+
+        Optional<Long> sum = account.getVotesList().stream().map(vote -> vote.getVoteCount())
+            .reduce((a, b) -> a + b);
+        if (sum.isPresent()) {
+          if (sum.get() <= account.getShare()) {
+            account.getVotesList().forEach(vote -> {
+              //TODO validate witness //active_witness
+              ByteString voteAddress = vote.getVoteAddress();
+              long voteCount = vote.getVoteCount();
+              if (countWitness.containsKey(voteAddress)) {
+                countWitness.put(voteAddress, countWitness.get(voteAddress) + voteCount);
+              } else {
+                countWitness.put(voteAddress, voteCount);
+              }
+            });
+          } else {
+            logger.info(
+                "account" + account.createReadableString() + ",share[" + account.getShare()
+                    + "] > voteSum["
+                    + sum.get() + "]");
+          }
+        }
+      });
+    }
+    return countWitness;
+  }
+
   private byte[] createDbKey(ByteString string) {
     return string.toByteArray();
   }
@@ -1133,6 +1340,38 @@ public class Manager {
     this.assetIssueStore = assetIssueStore;
   }
 
+  public AssetIssueIndexStore getAssetIssueIndexStore() {
+    return assetIssueIndexStore;
+  }
+
+  public void setAssetIssueIndexStore(AssetIssueIndexStore assetIssueIndexStore) {
+    this.assetIssueIndexStore = assetIssueIndexStore;
+  }
+
+  public WitnessVoteStore getWitnessVoteStore() {
+    return witnessVoteStore;
+  }
+
+  public void setWitnessVoteStore(WitnessVoteStore witnessVoteStore) {
+    this.witnessVoteStore = witnessVoteStore;
+  }
+
+  public TransactionHistoryStore getTransactionHistoryStore() {
+    return transactionHistoryStore;
+  }
+
+  public void setTransactionHistoryStore(TransactionHistoryStore transactionHistoryStore) {
+    this.transactionHistoryStore = transactionHistoryStore;
+  }
+
+  public BlockIndexStore getBlockIndexStore() {
+    return blockIndexStore;
+  }
+
+  public void setBlockIndexStore(BlockIndexStore blockIndexStore) {
+    this.blockIndexStore = blockIndexStore;
+  }
+
   /**
    * shuffle witnesses
    */
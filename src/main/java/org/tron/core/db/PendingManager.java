@@ -1,61 +1,42 @@
 package org.tron.core.db;
 
-import java.util.ArrayList;
-import java.util.List;
+import com.google.protobuf.ByteString;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
-import org.tron.core.capsule.TransactionCapsule;
-import org.tron.core.exception.ContractExeException;
-import org.tron.core.exception.ContractValidateException;
-import org.tron.core.exception.HighFreqException;
-import org.tron.core.exception.ValidateSignatureException;
 
+/**
+ * Takes the pending state off while a block is pushed and puts it back afterwards. The pending
+ * transactions stay in the pool: the ones which got into the block are evicted when it is
+ * applied, the ones of the senders it touched are validated again on the new head, and the rest
+ * is applied again only when a new transaction of the same sender comes.
+ */
 @Slf4j
 public class PendingManager implements AutoCloseable {
 
-  List<TransactionCapsule> tmpTransactions = new ArrayList<>();
   Manager dbManager;
 
   public PendingManager(Manager db) {
     this.dbManager = db;
-    tmpTransactions.addAll(db.getPendingTransactions());
-    db.getPendingTransactions().clear();
     db.getDialog().reset();
   }
 
   @Override
   public void close() {
-    this.tmpTransactions.stream()
-        .filter(
-            trx -> dbManager.getTransactionStore().get(trx.getTransactionId().getBytes()) == null)
-        .forEach(trx -> {
-          try {
-            dbManager.pushTransactions(trx);
-          } catch (ValidateSignatureException e) {
-            logger.debug(e.getMessage(), e);
-          } catch (ContractValidateException e) {
-            logger.debug(e.getMessage(), e);
-          } catch (ContractExeException e) {
-            logger.debug(e.getMessage(), e);
-          } catch (HighFreqException e) {
-            logger.debug(e.getMessage(), e);
-          }
-        });
+    TransactionPool pool = dbManager.getPendingTransactions();
+    Set<ByteString> touchedSenders = dbManager.getTouchedSenders();
+
+    // transactions of erased blocks which didn't get into the new branch
     dbManager.getPoppedTransactions().stream()
         .filter(
             trx -> dbManager.getTransactionStore().get(trx.getTransactionId().getBytes()) == null)
         .forEach(trx -> {
-          try {
-            dbManager.pushTransactions(trx);
-          } catch (ValidateSignatureException e) {
-            e.printStackTrace();
-          } catch (ContractValidateException e) {
-            e.printStackTrace();
-          } catch (ContractExeException e) {
-            e.printStackTrace();
-          } catch (HighFreqException e) {
-            e.printStackTrace();
-          }
+          pool.add(trx, dbManager.calcFee(trx));
+          touchedSenders.addAll(TransactionPool.getSenders(trx));
         });
     dbManager.getPoppedTransactions().clear();
+
+    pool.markUnapplied();
+    dbManager.applyPendingTransactions(touchedSenders);
+    touchedSenders.clear();
   }
 }
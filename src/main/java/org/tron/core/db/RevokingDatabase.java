@@ -1,8 +1,10 @@
 package org.tron.core.db;
 
+import java.util.Map.Entry;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.tron.common.storage.DbSourceInter;
 import org.tron.core.db.AbstractRevokingStore.Dialog;
-import org.tron.core.db.AbstractRevokingStore.RevokingState;
-import org.tron.core.db.AbstractRevokingStore.RevokingTuple;
 import org.tron.core.exception.RevokingStoreIllegalStateException;
 
 public interface RevokingDatabase {
@@ -11,11 +13,33 @@ public interface RevokingDatabase {
 
   Dialog buildDialog(boolean forceEnable);
 
-  void onCreate(RevokingTuple tuple, byte[] value);
+  /**
+   * Read a value as seen by the current dialog.
+   */
+  byte[] getData(DbSourceInter<byte[]> database, byte[] key);
 
-  void onModify(RevokingTuple tuple, byte[] value);
+  /**
+   * Write a value so that it can be revoked together with the current dialog.
+   */
+  void putData(DbSourceInter<byte[]> database, byte[] key, byte[] value);
 
-  void onRemove(RevokingTuple tuple, byte[] value);
+  /**
+   * Delete a value so that it can be restored together with the current dialog.
+   */
+  void deleteData(DbSourceInter<byte[]> database, byte[] key);
+
+  /**
+   * Delete a value for good, no revoked dialog or popped state brings it back.
+   */
+  void purgeData(DbSourceInter<byte[]> database, byte[] key);
+
+  /**
+   * Iterate lazily, in key order, over the entries whose key is in [from, to) as seen by the
+   * current dialog, a null bound being unbounded. The stream has to be closed.
+   */
+  Stream<Entry<byte[], byte[]>> stream(DbSourceInter<byte[]> database, byte[] from, byte[] to);
+
+  long getTotal(DbSourceInter<byte[]> database);
 
   void merge() throws RevokingStoreIllegalStateException;
 
@@ -25,7 +49,22 @@ public interface RevokingDatabase {
 
   void pop() throws RevokingStoreIllegalStateException;
 
-  RevokingState head();
+  /**
+   * Limit the number of committed states which can still be popped, up to the default max size.
+   */
+  void setMaxSize(int maxSize);
+
+  /**
+   * Persist every committed state, keeping only the active dialogs revocable.
+   */
+  void flush();
+
+  /**
+   * Listen to the keys of a database whose value goes back to an older one when a dialog is
+   * revoked or a committed state is popped, so that caches in front of it can drop them. The
+   * listener is called while the revoking database is locked. A null listener removes it.
+   */
+  void setRevokingListener(DbSourceInter<byte[]> database, Consumer<byte[]> listener);
 
   void enable();
 
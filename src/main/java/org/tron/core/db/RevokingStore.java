@@ -1,5 +1,9 @@
 package org.tron.core.db;
 
+import java.util.Optional;
+import org.tron.core.config.args.Args;
+import org.tron.core.config.args.Storage;
+
 public class RevokingStore extends AbstractRevokingStore {
 
   private RevokingStore() {
@@ -16,7 +20,15 @@ public class RevokingStore extends AbstractRevokingStore {
     private RevokingDatabase instance;
 
     RevokingEnum() {
-      instance = new RevokingStore();
+      boolean snapshot = Optional.ofNullable(Args.getInstance().getStorage())
+          .map(Storage::isSnapshot)
+          .orElse(true);
+      if (snapshot) {
+        instance = new SnapshotRevokingStore(new SnapshotJournal("snapshot_JOURNAL"));
+        instance.enable();
+      } else {
+        instance = new RevokingStore();
+      }
     }
 
     private RevokingDatabase getInstance() {
@@ -0,0 +1,86 @@
+package org.tron.core.db;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.common.storage.leveldb.LevelDbDataSourceImpl;
+import org.tron.common.utils.ByteArray;
+import org.tron.core.config.args.Args;
+
+/**
+ * Journal of the snapshot flushes. It only records the sequence of a flush and the databases it
+ * writes, the rows go once to their database. Every batch carries the flush sequence under
+ * {@link LevelDbDataSourceImpl#SEQUENCE_KEY}, atomically with its rows, so startup can tell which
+ * databases got the flush: all of them, and the record is just cleared, or only some, and the
+ * databases are torn between two flushes, which can't be rolled forward and stops the node.
+ */
+@Slf4j
+class SnapshotJournal {
+
+  private static final byte[] LAST_SEQUENCE = "last_sequence".getBytes();
+  private static final byte[] PENDING_DATABASES = "pending_databases".getBytes();
+
+  private LevelDbDataSourceImpl journal;
+  private long sequence;
+
+  SnapshotJournal(String dbName) {
+    journal = new LevelDbDataSourceImpl(Args.getInstance().getOutputDirectory(), dbName);
+    journal.initDB();
+    byte[] last = journal.getData(LAST_SEQUENCE);
+    sequence = last == null ? 0 : ByteArray.toLong(last);
+  }
+
+  /**
+   * Record a flush about to write the databases, as a single small batch.
+   *
+   * @return the sequence the batches of the flush have to carry
+   */
+  long write(Collection<String> dbNames) {
+    Map<byte[], byte[]> batch = new HashMap<>();
+    batch.put(LAST_SEQUENCE, ByteArray.fromLong(++sequence));
+    batch.put(PENDING_DATABASES, String.join(",", dbNames).getBytes());
+    journal.updateByBatch(batch);
+    return sequence;
+  }
+
+  /**
+   * Forget the recorded flush once every database has been written.
+   */
+  void clear() {
+    journal.deleteData(PENDING_DATABASES);
+  }
+
+  /**
+   * Check that the last recorded flush reached every database it writes. This has to run before
+   * the databases are opened by their stores.
+   */
+  void recover() {
+    byte[] pending = journal.getData(PENDING_DATABASES);
+    if (pending == null) {
+      return;
+    }
+
+    List<String> missing = Arrays.stream(new String(pending).split(","))
+        .filter(dbName -> !dbName.isEmpty())
+        .filter(dbName -> {
+          LevelDbDataSourceImpl database = new LevelDbDataSourceImpl(
+              Args.getInstance().getOutputDirectory(), dbName);
+          database.initDB();
+          byte[] applied = database.getData(LevelDbDataSourceImpl.SEQUENCE_KEY);
+          database.closeDB();
+          return applied == null || ByteArray.toLong(applied) < sequence;
+        })
+        .collect(Collectors.toList());
+    if (!missing.isEmpty()) {
+      throw new IllegalStateException("snapshot flush " + sequence + " didn't reach " + missing
+          + ", the databases are inconsistent and have to be synced again");
+    }
+
+    logger.info("snapshot flush {} was complete", sequence);
+    clear();
+  }
+}
@@ -0,0 +1,450 @@
+package org.tron.core.db;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.PeekingIterator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.common.storage.DbSourceInter;
+import org.tron.common.storage.leveldb.LevelDbDataSourceImpl;
+import org.tron.common.utils.ByteArray;
+import org.tron.core.db.AbstractRevokingStore.Dialog;
+import org.tron.core.exception.RevokingStoreIllegalStateException;
+
+/**
+ * Revoking database that keeps every dialog as an in-memory layer on top of LevelDB. Reads fall
+ * through the layers from the newest to the oldest one and then to the database, so revoking or
+ * popping a dialog is just dropping its layer. Committed layers are written to the database, one
+ * batch per database, once they are older than the max size. With a journal, each flush is
+ * recorded and its batches carry its sequence, so startup can tell a flush a crash tore apart.
+ */
+@Slf4j
+public class SnapshotRevokingStore implements RevokingDatabase {
+
+  private static final int DEFAULT_STACK_MAX_SIZE = 256;
+
+  @Getter // only for unit test
+  private Deque<Snapshot> stack = new LinkedList<>();
+  private boolean disabled = true;
+  @Getter // only for unit test
+  private int activeDialog = 0;
+  private int maxSize = DEFAULT_STACK_MAX_SIZE;
+  private SnapshotJournal journal;
+  private Map<DbSourceInter<byte[]>, Consumer<byte[]>> revokingListeners = new HashMap<>();
+
+  // write amplification: writes made by the stores against rows and batches hitting the disk
+  private long writeCount = 0;
+  private long flushedRowCount = 0;
+  private long flushedBatchCount = 0;
+
+  public SnapshotRevokingStore() {
+  }
+
+  SnapshotRevokingStore(SnapshotJournal journal) {
+    this.journal = journal;
+    journal.recover();
+  }
+
+  @Override
+  public Dialog buildDialog() {
+    return buildDialog(false);
+  }
+
+  @Override
+  public synchronized Dialog buildDialog(boolean forceEnable) {
+    if (disabled && !forceEnable) {
+      return new Dialog(this);
+    }
+
+    boolean disableOnExit = disabled && forceEnable;
+    if (forceEnable) {
+      disabled = false;
+    }
+
+    if (stack.size() - activeDialog > maxSize) {
+      flushCommitted(stack.size() - activeDialog - maxSize);
+    }
+
+    stack.add(new Snapshot());
+    ++activeDialog;
+    return new Dialog(this, disableOnExit);
+  }
+
+  @Override
+  public synchronized byte[] getData(DbSourceInter<byte[]> database, byte[] key) {
+    ByteArrayWrapper wrappedKey = new ByteArrayWrapper(key);
+    Iterator<Snapshot> iterator = stack.descendingIterator();
+    while (iterator.hasNext()) {
+      Map<ByteArrayWrapper, byte[]> values = iterator.next().values.get(database);
+      if (values != null && values.containsKey(wrappedKey)) {
+        return values.get(wrappedKey);
+      }
+    }
+
+    return database.getData(key);
+  }
+
+  /**
+   * Writes go to the newest layer, or straight to the database if there is no layer at all or the
+   * store is disabled.
+   */
+  @Override
+  public synchronized void putData(DbSourceInter<byte[]> database, byte[] key, byte[] value) {
+    if (disabled || stack.isEmpty()) {
+      writeThrough(database, key);
+      database.putData(key, value);
+      return;
+    }
+
+    stack.peekLast().put(database, key, value);
+    ++writeCount;
+  }
+
+  @Override
+  public synchronized void deleteData(DbSourceInter<byte[]> database, byte[] key) {
+    if (disabled || stack.isEmpty()) {
+      writeThrough(database, key);
+      database.deleteData(key);
+      return;
+    }
+
+    stack.peekLast().put(database, key, null);
+    ++writeCount;
+  }
+
+  @Override
+  public synchronized void purgeData(DbSourceInter<byte[]> database, byte[] key) {
+    writeThrough(database, key);
+    database.deleteData(key);
+  }
+
+  /**
+   * Drop a key written past the layers from them, so the reads don't hide the new value.
+   */
+  private void writeThrough(DbSourceInter<byte[]> database, byte[] key) {
+    ByteArrayWrapper wrappedKey = new ByteArrayWrapper(key);
+    stack.forEach(snapshot -> {
+      Map<ByteArrayWrapper, byte[]> values = snapshot.values.get(database);
+      if (values != null) {
+        values.remove(wrappedKey);
+      }
+    });
+  }
+
+  /**
+   * Merge the database iterator with a sorted copy of the layers in range, so the stream stays
+   * consistent while later dialogs go on. Only the range of each layer is copied.
+   */
+  @Override
+  public synchronized Stream<Entry<byte[], byte[]>> stream(DbSourceInter<byte[]> database,
+      byte[] from, byte[] to) {
+    NavigableMap<ByteArrayWrapper, byte[]> overlay = new TreeMap<>();
+    stack.stream()
+        .map(snapshot -> snapshot.values.get(database))
+        .filter(Objects::nonNull)
+        .forEach(values -> overlay.putAll(subMap(values, from, to)));
+
+    Stream<Entry<byte[], byte[]>> stored = database.stream(from, to);
+    if (overlay.isEmpty()) {
+      return stored;
+    }
+
+    Iterator<Entry<byte[], byte[]>> merged = new MergedIterator(stored.iterator(), overlay);
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged,
+        Spliterator.ORDERED | Spliterator.NONNULL), false)
+        .onClose(stored::close);
+  }
+
+  @Override
+  public synchronized long getTotal(DbSourceInter<byte[]> database) {
+    long total = database.getTotal();
+    for (Map.Entry<ByteArrayWrapper, byte[]> entry : collect(database).entrySet()) {
+      boolean stored = database.getData(entry.getKey().getData()) != null;
+      if (entry.getValue() == null && stored) {
+        --total;
+      } else if (entry.getValue() != null && !stored) {
+        ++total;
+      }
+    }
+    return total;
+  }
+
+  @Override
+  public synchronized void merge() throws RevokingStoreIllegalStateException {
+    if (activeDialog <= 0) {
+      throw new RevokingStoreIllegalStateException("activeDialog has to be greater than 0");
+    }
+
+    if (activeDialog == 1 && stack.size() == 1) {
+      flushCommitted(1);
+      --activeDialog;
+      return;
+    }
+
+    if (stack.size() < 2) {
+      return;
+    }
+
+    Snapshot snapshot = stack.pollLast();
+    stack.peekLast().merge(snapshot);
+    --activeDialog;
+  }
+
+  @Override
+  public synchronized void revoke() throws RevokingStoreIllegalStateException {
+    if (disabled) {
+      return;
+    }
+
+    if (activeDialog <= 0) {
+      throw new RevokingStoreIllegalStateException("activeDialog has to be greater than 0");
+    }
+
+    Snapshot snapshot = stack.pollLast();
+    if (Objects.isNull(snapshot)) {
+      return;
+    }
+    notifyRevoked(snapshot);
+    --activeDialog;
+  }
+
+  @Override
+  public synchronized void commit() throws RevokingStoreIllegalStateException {
+    if (activeDialog <= 0) {
+      throw new RevokingStoreIllegalStateException("activeDialog has to be greater than 0");
+    }
+
+    --activeDialog;
+  }
+
+  @Override
+  public synchronized void pop() throws RevokingStoreIllegalStateException {
+    if (activeDialog != 0) {
+      throw new RevokingStoreIllegalStateException("activeDialog has to be equal 0");
+    }
+
+    if (stack.isEmpty()) {
+      throw new RevokingStoreIllegalStateException("stack is empty");
+    }
+
+    notifyRevoked(stack.pollLast());
+  }
+
+  @Override
+  public synchronized void setMaxSize(int maxSize) {
+    this.maxSize = Math.min(maxSize, DEFAULT_STACK_MAX_SIZE);
+  }
+
+  @Override
+  public synchronized void flush() {
+    flushCommitted(stack.size() - activeDialog);
+  }
+
+  @Override
+  public synchronized void setRevokingListener(DbSourceInter<byte[]> database,
+      Consumer<byte[]> listener) {
+    if (listener == null) {
+      revokingListeners.remove(database);
+    } else {
+      revokingListeners.put(database, listener);
+    }
+  }
+
+  @Override
+  public synchronized void enable() {
+    disabled = false;
+  }
+
+  @Override
+  public synchronized void disable() {
+    disabled = true;
+  }
+
+  private void notifyRevoked(Snapshot snapshot) {
+    snapshot.values.forEach((database, values) -> {
+      Consumer<byte[]> listener = revokingListeners.get(database);
+      if (listener != null) {
+        values.keySet().forEach(key -> listener.accept(key.getData()));
+      }
+    });
+  }
+
+  private static NavigableMap<ByteArrayWrapper, byte[]> subMap(
+      NavigableMap<ByteArrayWrapper, byte[]> values, byte[] from, byte[] to) {
+    if (from != null) {
+      values = values.tailMap(new ByteArrayWrapper(from), true);
+    }
+    if (to != null) {
+      values = values.headMap(new ByteArrayWrapper(to), false);
+    }
+    return values;
+  }
+
+  /**
+   * Collect the changes of all layers on the given database, newer layers overriding older ones.
+   */
+  private Map<ByteArrayWrapper, byte[]> collect(DbSourceInter<byte[]> database) {
+    Map<ByteArrayWrapper, byte[]> overlay = new HashMap<>();
+    stack.stream()
+        .map(snapshot -> snapshot.values.get(database))
+        .filter(Objects::nonNull)
+        .forEach(overlay::putAll);
+    return overlay;
+  }
+
+  /**
+   * Write the oldest layers to the database, as a single write batch per database.
+   */
+  private void flushCommitted(int count) {
+    if (count <= 0) {
+      return;
+    }
+
+    Snapshot flushed = new Snapshot();
+    for (int i = 0; i < count; i++) {
+      flushed.merge(stack.poll());
+    }
+
+    Map<DbSourceInter<byte[]>, Map<byte[], byte[]>> rows = new HashMap<>();
+    flushed.values.forEach((database, values) -> {
+      Map<byte[], byte[]> batch = new HashMap<>();
+      values.forEach((k, v) -> batch.put(k.getData(), v));
+      rows.put(database, batch);
+    });
+
+    flushedRowCount += rows.values().stream().mapToInt(Map::size).sum();
+    flushedBatchCount += rows.size();
+    if (journal != null) {
+      long sequence = journal.write(rows.keySet().stream()
+          .map(DbSourceInter::getDBName)
+          .collect(Collectors.toList()));
+      rows.values().forEach(batch ->
+          batch.put(LevelDbDataSourceImpl.SEQUENCE_KEY, ByteArray.fromLong(sequence)));
+    }
+    rows.forEach(DbSourceInter::updateByBatch);
+    if (journal != null) {
+      journal.clear();
+    }
+
+    logger.debug("flush {} snapshots, writeCount:{}, flushedRowCount:{}, flushedBatchCount:{}",
+        count, writeCount, flushedRowCount, flushedBatchCount);
+  }
+
+  /**
+   * Get the number of writes the stores made, each one of a single row.
+   */
+  public synchronized long getWriteCount() {
+    return writeCount;
+  }
+
+  /**
+   * Get the number of rows written to the databases by the flushes, the writes to the same row
+   * in the flushed layers counting once.
+   */
+  public synchronized long getFlushedRowCount() {
+    return flushedRowCount;
+  }
+
+  /**
+   * Get the number of write batches the flushes made, one per database and flush.
+   */
+  public synchronized long getFlushedBatchCount() {
+    return flushedBatchCount;
+  }
+
+  /**
+   * Merges two iterators sorted by key, the overlay winning on equal keys and hiding the deleted
+   * ones.
+   */
+  private static class MergedIterator implements Iterator<Entry<byte[], byte[]>> {
+
+    private PeekingIterator<Entry<byte[], byte[]>> stored;
+    private PeekingIterator<Entry<ByteArrayWrapper, byte[]>> overlay;
+    private Entry<byte[], byte[]> next;
+
+    MergedIterator(Iterator<Entry<byte[], byte[]>> stored,
+        NavigableMap<ByteArrayWrapper, byte[]> overlay) {
+      this.stored = Iterators.peekingIterator(stored);
+      this.overlay = Iterators.peekingIterator(overlay.entrySet().iterator());
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next == null) {
+        next = advance();
+      }
+      return next != null;
+    }
+
+    @Override
+    public Entry<byte[], byte[]> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Entry<byte[], byte[]> entry = next;
+      next = null;
+      return entry;
+    }
+
+    private Entry<byte[], byte[]> advance() {
+      while (stored.hasNext() || overlay.hasNext()) {
+        int cmp;
+        if (!overlay.hasNext()) {
+          cmp = -1;
+        } else if (!stored.hasNext()) {
+          cmp = 1;
+        } else {
+          cmp = new ByteArrayWrapper(stored.peek().getKey()).compareTo(overlay.peek().getKey());
+        }
+
+        if (cmp < 0) {
+          return stored.next();
+        }
+        if (cmp == 0) {
+          stored.next();
+        }
+        Entry<ByteArrayWrapper, byte[]> changed = overlay.next();
+        if (changed.getValue() != null) {
+          return Maps.immutableEntry(changed.getKey().getData(), changed.getValue());
+        }
+      }
+      return null;
+    }
+  }
+
+  @ToString
+  @Getter // only for unit test
+  static class Snapshot {
+
+    // sorted by key for the range streams, a null value marks a deleted key
+    private Map<DbSourceInter<byte[]>, NavigableMap<ByteArrayWrapper, byte[]>> values =
+        new HashMap<>();
+
+    void put(DbSourceInter<byte[]> database, byte[] key, byte[] value) {
+      values.computeIfAbsent(database, db -> new TreeMap<>())
+          .put(new ByteArrayWrapper(key), value);
+    }
+
+    void merge(Snapshot snapshot) {
+      snapshot.values.forEach((database, newValues) ->
+          values.computeIfAbsent(database, db -> new TreeMap<>()).putAll(newValues));
+    }
+  }
+}
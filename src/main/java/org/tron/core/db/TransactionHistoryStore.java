@@ -0,0 +1,111 @@
+package org.tron.core.db;
+
+import com.google.common.primitives.UnsignedBytes;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ArrayUtils;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.capsule.BytesCapsule;
+import org.tron.core.capsule.TransactionCapsule;
+import org.tron.protos.Protocol.Transaction;
+
+/**
+ * Index of the transactions by the addresses they touch: [address length][address][block
+ * number][transaction index] to the transaction id. The transactions of an address are listed in
+ * chain order by a prefix scan.
+ */
+@Slf4j
+public class TransactionHistoryStore extends TronStoreWithRevoking<BytesCapsule> {
+
+  private static TransactionHistoryStore instance;
+
+  private TransactionHistoryStore(String dbName) {
+    super(dbName);
+  }
+
+  public static void destroy() {
+    instance = null;
+  }
+
+  /**
+   * create fun.
+   *
+   * @param dbName the name of database
+   */
+  public static TransactionHistoryStore create(String dbName) {
+    if (instance == null) {
+      synchronized (TransactionHistoryStore.class) {
+        if (instance == null) {
+          instance = new TransactionHistoryStore(dbName);
+        }
+      }
+    }
+    return instance;
+  }
+
+  @Override
+  public BytesCapsule get(byte[] key) {
+    byte[] value = getValue(key);
+    return ArrayUtils.isEmpty(value) ? null : new BytesCapsule(value);
+  }
+
+  @Override
+  public boolean has(byte[] key) {
+    return null != getValue(key);
+  }
+
+  /**
+   * Index the transactions of a block under the owner and recipient of each of their contracts.
+   */
+  public void put(BlockCapsule block) {
+    List<TransactionCapsule> transactions = block.getTransactions();
+    for (int i = 0; i < transactions.size(); i++) {
+      TransactionCapsule trx = transactions.get(i);
+      BytesCapsule trxId = new BytesCapsule(trx.getTransactionId().getBytes());
+      for (byte[] address : getAddresses(trx)) {
+        put(historyKey(address, block.getNum(), i), trxId);
+      }
+    }
+  }
+
+  /**
+   * Get a page of the ids of the transactions which touched an address, in chain order.
+   */
+  public List<Sha256Hash> getTransactionIds(byte[] address, long offset, long limit) {
+    try (Stream<Sha256Hash> trxIds = prefixStream(addressPrefix(address))
+        .map(entry -> Sha256Hash.wrap(entry.getValue()))) {
+      return trxIds.skip(offset).limit(limit).collect(Collectors.toList());
+    }
+  }
+
+  private static Set<byte[]> getAddresses(TransactionCapsule trx) {
+    // an address touched by several contracts of a transaction is indexed once
+    Set<byte[]> addresses = new TreeSet<>(UnsignedBytes.lexicographicalComparator());
+    List<byte[]> owners = trx.getOwners();
+    List<Transaction.Contract> contracts = trx.getInstance().getRawData().getContractList();
+    for (int i = 0; i < contracts.size(); i++) {
+      Stream.of(owners.get(i), TransactionCapsule.getToAddress(contracts.get(i)))
+          .filter(ArrayUtils::isNotEmpty)
+          .forEach(addresses::add);
+    }
+    return addresses;
+  }
+
+  private static byte[] addressPrefix(byte[] address) {
+    return ArrayUtils.add(address, 0, (byte) address.length);
+  }
+
+  private static byte[] historyKey(byte[] address, long blockNum, int trxIndex) {
+    return ByteBuffer.allocate(1 + address.length + Long.BYTES + Integer.BYTES)
+        .put(addressPrefix(address))
+        .putLong(blockNum)
+        .putInt(trxIndex)
+        .array();
+  }
+}
@@ -0,0 +1,250 @@
+package org.tron.core.db;
+
+import com.google.protobuf.ByteString;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.core.capsule.TransactionCapsule;
+
+/**
+ * Pending transactions indexed by id, by sender and by priority, iterated in arrival order.
+ * Adding, finding and evicting a transaction take at most logarithmic time in the pool size. The pool also tracks which of them
+ * are applied on the pending state, so only the ones of the senders a block touched have to be
+ * applied again. Once the pool is full, a new transaction evicts the one of lowest priority if it
+ * pays more, or is rejected. Not thread safe, the manager guards it.
+ */
+public class TransactionPool {
+
+  public static final int DEFAULT_MAX_SIZE = 50_000;
+
+  /**
+   * Higher fee first, then older first.
+   */
+  private static final Comparator<Entry> PRIORITY = Comparator
+      .comparingLong((Entry entry) -> entry.fee).reversed()
+      .thenComparingLong(entry -> entry.sequence);
+
+  private Map<Sha256Hash, Entry> transactions = new LinkedHashMap<>();
+  private Map<ByteString, Set<Sha256Hash>> senderIndex = new HashMap<>();
+  private TreeSet<Entry> byPriority = new TreeSet<>(PRIORITY);
+  private final int maxSize;
+  private long sequence = 0;
+  // bumped when the pending state is reset, older entries are no longer applied on it
+  private long generation = 0;
+
+  public TransactionPool() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  public TransactionPool(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Add a transaction without fee, false if it is already pending.
+   */
+  public boolean add(TransactionCapsule trx) {
+    return add(trx, 0);
+  }
+
+  /**
+   * Whether a transaction paying the fee would get in, the pool isn't full or it pays more than
+   * the transaction of lowest priority.
+   */
+  public boolean canAdd(long fee) {
+    return transactions.size() < maxSize
+        || (!byPriority.isEmpty() && fee > byPriority.last().fee);
+  }
+
+  /**
+   * Add a transaction with the fee it pays, false if it is already pending or the pool is full of
+   * transactions paying at least as much. It is taken as applied on the pending state.
+   */
+  public boolean add(TransactionCapsule trx, long fee) {
+    Sha256Hash id = trx.getTransactionId();
+    if (transactions.containsKey(id) || !canAdd(fee)) {
+      return false;
+    }
+    if (transactions.size() >= maxSize) {
+      remove(byPriority.last().trx.getTransactionId());
+    }
+
+    Entry entry = new Entry(trx, fee, sequence++, generation);
+    transactions.put(id, entry);
+    byPriority.add(entry);
+    entry.senders.forEach(sender ->
+        senderIndex.computeIfAbsent(sender, key -> new LinkedHashSet<>()).add(id));
+    return true;
+  }
+
+  /**
+   * Remove a transaction, null if it isn't pending.
+   */
+  public TransactionCapsule remove(Sha256Hash id) {
+    Entry entry = transactions.remove(id);
+    if (entry == null) {
+      return null;
+    }
+
+    byPriority.remove(entry);
+    entry.senders.forEach(sender -> {
+      Set<Sha256Hash> ids = senderIndex.get(sender);
+      ids.remove(id);
+      if (ids.isEmpty()) {
+        senderIndex.remove(sender);
+      }
+    });
+    return entry.trx;
+  }
+
+  /**
+   * Evict the transactions which got into a block.
+   */
+  public void removeAll(Collection<TransactionCapsule> included) {
+    included.forEach(trx -> remove(trx.getTransactionId()));
+  }
+
+  public boolean contains(Sha256Hash id) {
+    return transactions.containsKey(id);
+  }
+
+  public TransactionCapsule get(Sha256Hash id) {
+    Entry entry = transactions.get(id);
+    return entry == null ? null : entry.trx;
+  }
+
+  /**
+   * Get the pending transactions of a sender, in arrival order.
+   */
+  public List<TransactionCapsule> getBySender(ByteString sender) {
+    return senderIndex.getOrDefault(sender, Collections.emptySet()).stream()
+        .map(id -> transactions.get(id).trx)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Mark all pending transactions as no longer applied, once the pending state was reset.
+   */
+  public void markUnapplied() {
+    generation++;
+  }
+
+  /**
+   * Take the pending transactions of the senders which aren't applied on the pending state, in
+   * arrival order, and mark them applied.
+   */
+  public List<TransactionCapsule> takeUnapplied(Collection<ByteString> senders) {
+    List<Entry> entries = senders.stream()
+        .flatMap(sender -> senderIndex.getOrDefault(sender, Collections.emptySet()).stream())
+        .distinct()
+        .map(transactions::get)
+        .filter(entry -> entry.appliedGeneration != generation)
+        .sorted(Comparator.comparingLong(entry -> entry.sequence))
+        .collect(Collectors.toList());
+    entries.forEach(entry -> entry.appliedGeneration = generation);
+    return entries.stream()
+        .map(entry -> entry.trx)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Get all pending transactions, in arrival order.
+   */
+  public List<TransactionCapsule> getTransactions() {
+    return transactions.values().stream()
+        .map(entry -> entry.trx)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Get all pending transactions in the order they should be packed: higher fee first, then
+   * older first, but the transactions of one sender always keep their arrival order since a
+   * later one may depend on an earlier one.
+   */
+  public List<TransactionCapsule> getPrioritized() {
+    Map<ByteString, Deque<Entry>> queues = new HashMap<>();
+    List<Deque<Entry>> heads = new ArrayList<>();
+    transactions.values().forEach(entry -> {
+      if (entry.sender == null) {
+        heads.add(new ArrayDeque<>(Collections.singleton(entry)));
+        return;
+      }
+      queues.computeIfAbsent(entry.sender, sender -> {
+        Deque<Entry> queue = new ArrayDeque<>();
+        heads.add(queue);
+        return queue;
+      }).add(entry);
+    });
+
+    PriorityQueue<Deque<Entry>> ready = new PriorityQueue<>(Math.max(1, heads.size()),
+        Comparator.comparing(Deque::peekFirst, PRIORITY));
+    ready.addAll(heads);
+
+    List<TransactionCapsule> result = new ArrayList<>(transactions.size());
+    while (!ready.isEmpty()) {
+      Deque<Entry> queue = ready.poll();
+      result.add(queue.pollFirst().trx);
+      if (!queue.isEmpty()) {
+        ready.add(queue);
+      }
+    }
+    return result;
+  }
+
+  public int size() {
+    return transactions.size();
+  }
+
+  public boolean isEmpty() {
+    return transactions.isEmpty();
+  }
+
+  public void clear() {
+    transactions.clear();
+    senderIndex.clear();
+    byPriority.clear();
+  }
+
+  /**
+   * Get the owners of a transaction, the keys of the sender index.
+   */
+  static Set<ByteString> getSenders(TransactionCapsule trx) {
+    return trx.getOwners().stream()
+        .filter(Objects::nonNull)
+        .map(ByteString::copyFrom)
+        .collect(Collectors.toCollection(LinkedHashSet::new));
+  }
+
+  private static class Entry {
+
+    private final TransactionCapsule trx;
+    private final long fee;
+    private final long sequence;
+    private final ByteString sender;
+    private final Set<ByteString> senders;
+    private long appliedGeneration;
+
+    Entry(TransactionCapsule trx, long fee, long sequence, long appliedGeneration) {
+      this.trx = trx;
+      this.fee = fee;
+      this.sequence = sequence;
+      this.appliedGeneration = appliedGeneration;
+      this.senders = getSenders(trx);
+      this.sender = senders.isEmpty() ? null : senders.iterator().next();
+    }
+  }
+}
@@ -13,23 +13,23 @@ public class TransactionStore extends TronStoreWithRevoking<TransactionCapsule>
 
   @Override
   public TransactionCapsule get(byte[] key) {
-    byte[] value = dbSource.getData(key);
+    byte[] value = getValue(key);
     return ArrayUtils.isEmpty(value) ? null : new TransactionCapsule(value);
   }
 
 
   @Override
   public boolean has(byte[] key) {
-    byte[] transaction = dbSource.getData(key);
+    byte[] transaction = getValue(key);
     logger.info("address is {}, transaction is {}", key, transaction);
     return null != transaction;
   }
 
   /**
-   * get total transaction.
+   * get total transaction, by iterating the whole store.
    */
   public long getTotalTransactions() {
-    return dbSource.getTotal();
+    return getTotal();
   }
 
   private static TransactionStore instance;
@@ -60,7 +60,7 @@ public class TransactionStore extends TronStoreWithRevoking<TransactionCapsule>
    * find a transaction  by it's id.
    */
   public byte[] findTransactionByHash(byte[] trxHash) {
-    return dbSource.getData(trxHash);
+    return getValue(trxHash);
   }
 
 }
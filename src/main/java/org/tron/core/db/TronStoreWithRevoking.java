@@ -1,69 +1,81 @@
-package org.tron.core.db;
-
-import java.util.Objects;
-import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.ArrayUtils;
-import org.tron.core.capsule.ProtoCapsule;
-import org.tron.core.db.AbstractRevokingStore.RevokingTuple;
-
-@Slf4j
-public abstract class TronStoreWithRevoking<T extends ProtoCapsule> extends TronDatabase<T> {
-
-  private RevokingDatabase revokingDatabase;
-
-  protected TronStoreWithRevoking(String dbName) {
-    this(dbName, RevokingStore.getInstance());
-  }
-
-  // only for unit test
-  protected TronStoreWithRevoking(String dbName, RevokingDatabase revokingDatabase) {
-    super(dbName);
-    this.revokingDatabase = revokingDatabase;
-    revokingDatabase.enable();
-  }
-
-  @Override
-  public void put(byte[] key, T item) {
-    //logger.info("Address is {}, " + item.getClass().getSimpleName() + " is {}", key, item);
-    byte[] value = dbSource.getData(key);
-    if (ArrayUtils.isNotEmpty(value)) {
-      onModify(key, value);
-    }
-
-    dbSource.putData(key, item.getData());
-
-    if (ArrayUtils.isEmpty(value)) {
-      onCreate(key);
-    }
-  }
-
-  @Override
-  public void delete(byte[] key) {
-    onDelete(key);
-    dbSource.deleteData(key);
-  }
-
-  /**
-   * This should be called just after an object is created
-   */
-  private void onCreate(byte[] key) {
-    revokingDatabase.onCreate(new RevokingTuple(dbSource, key), null);
-  }
-
-  /**
-   * This should be called just before an object is modified
-   */
-  private void onModify(byte[] key, byte[] value) {
-    revokingDatabase.onModify(new RevokingTuple(dbSource, key), value);
-  }
-
-  /**
-   * This should be called just before an object is removed.
-   */
-  private void onDelete(byte[] key) {
-    byte[] value;
-    if (Objects.nonNull(value = dbSource.getData(key))) {
-      revokingDatabase.onRemove(new RevokingTuple(dbSource, key), value);
-    }
-  }
-}
+package org.tron.core.db;
+
+import java.util.Map.Entry;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.common.utils.ByteUtil;
+import org.tron.core.capsule.ProtoCapsule;
+
+@Slf4j
+public abstract class TronStoreWithRevoking<T extends ProtoCapsule> extends TronDatabase<T> {
+
+  private RevokingDatabase revokingDatabase;
+
+  protected TronStoreWithRevoking(String dbName) {
+    this(dbName, RevokingStore.getInstance());
+  }
+
+  // only for unit test
+  protected TronStoreWithRevoking(String dbName, RevokingDatabase revokingDatabase) {
+    super(dbName);
+    this.revokingDatabase = revokingDatabase;
+    revokingDatabase.enable();
+  }
+
+  @Override
+  public void put(byte[] key, T item) {
+    //logger.info("Address is {}, " + item.getClass().getSimpleName() + " is {}", key, item);
+    revokingDatabase.putData(dbSource, key, item.getData());
+  }
+
+  @Override
+  public void delete(byte[] key) {
+    revokingDatabase.deleteData(dbSource, key);
+  }
+
+  /**
+   * Delete a key for good, out of the reach of the revoked dialogs and popped states.
+   */
+  public void purge(byte[] key) {
+    revokingDatabase.purgeData(dbSource, key);
+  }
+
+  /**
+   * Get the raw value of a key, including the changes of the active dialogs.
+   */
+  protected byte[] getValue(byte[] key) {
+    return revokingDatabase.getData(dbSource, key);
+  }
+
+  /**
+   * Iterate lazily, in key order, over the entries whose key is in [from, to), including the
+   * changes of the active dialogs. A null bound is unbounded, the stream has to be closed.
+   */
+  protected Stream<Entry<byte[], byte[]>> stream(byte[] from, byte[] to) {
+    return revokingDatabase.stream(dbSource, from, to);
+  }
+
+  /**
+   * Iterate lazily, in key order, over the entries whose key starts with the prefix.
+   */
+  protected Stream<Entry<byte[], byte[]>> prefixStream(byte[] prefix) {
+    return stream(prefix, ByteUtil.prefixUpperBound(prefix));
+  }
+
+  /**
+   * Whether the store has no entry, without loading the keys.
+   */
+  public boolean isEmpty() {
+    try (Stream<Entry<byte[], byte[]>> entries = stream(null, null)) {
+      return !entries.findAny().isPresent();
+    }
+  }
+
+  protected RevokingDatabase getRevokingDatabase() {
+    return revokingDatabase;
+  }
+
+  protected long getTotal() {
+    return revokingDatabase.getTotal(dbSource);
+  }
+}
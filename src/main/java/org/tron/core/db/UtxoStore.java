@@ -17,24 +17,44 @@
 package org.tron.core.db;
 
 import com.google.protobuf.InvalidProtocolBufferException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ArrayUtils;
 import org.tron.common.crypto.ECKey;
+import org.tron.common.storage.leveldb.LevelDbDataSourceImpl;
 import org.tron.common.utils.ByteArray;
 import org.tron.core.SpendableOutputs;
+import org.tron.core.config.args.Args;
 import org.tron.protos.Protocol.TXOutput;
 import org.tron.protos.Protocol.TXOutputs;
 
+/**
+ * Unspent outputs by transaction key, with an index from the pubKeyHash of each output to its
+ * outpoint, so that the lookups by address only read the outputs of that address.
+ */
 @Slf4j
 public class UtxoStore extends TronDatabase {
+
+  // [pubKeyHash length][pubKeyHash][utxo key][output index] -> serialized TXOutput
+  private LevelDbDataSourceImpl addressIndex;
+
   private UtxoStore(String dbName) {
     super(dbName);
+    addressIndex = new LevelDbDataSourceImpl(Args.getInstance().getOutputDirectory(),
+        dbName + "_ADDRESS_INDEX");
+    addressIndex.initDB();
+    initAddressIndex();
   }
 
 
@@ -59,6 +79,7 @@ public class UtxoStore extends TronDatabase {
 
   public void reSet() {
     this.dbSource.resetDb();
+    this.addressIndex.resetDb();
   }
 
   public byte[] find(byte[] key) {
@@ -74,35 +95,44 @@ public class UtxoStore extends TronDatabase {
    * save  utxo.
    */
   public void saveUtxo(byte[] utxoKey, byte[] utxoData) {
+    // the stale rows are deleted before the new ones are written in the batch
+    Map<byte[], byte[]> rows = new LinkedHashMap<>();
+    parseOutputs(dbSource.getData(utxoKey)).forEach((index, txOutput) ->
+        rows.put(indexKey(txOutput.getPubKeyHash().toByteArray(), utxoKey, index), null));
+    parseOutputs(utxoData).forEach((index, txOutput) ->
+        rows.put(indexKey(txOutput.getPubKeyHash().toByteArray(), utxoKey, index),
+            txOutput.toByteArray()));
+
     dbSource.putData(utxoKey, utxoData);
+    addressIndex.updateByBatch(rows);
   }
 
   /**
-   * Find spendable outputs.
+   * Find spendable outputs, stopping as soon as the amount is reached.
    */
   public SpendableOutputs findSpendableOutputs(byte[] pubKeyHash, long amount) {
     SpendableOutputs spendableOutputs = new SpendableOutputs();
     HashMap<String, long[]> unspentOutputs = new HashMap<>();
     long accumulated = 0L;
 
-    for (byte[] key : getDbSource().allKeys()) {
-      try {
-        TXOutputs txOutputs = TXOutputs.parseFrom(getDbSource().getData(key));
-        String keyToHexString = ByteArray.toHexString(key);
-
-        for (int i = 0, len = txOutputs.getOutputsCount(); i < len; i++) {
-          TXOutput txOutput = txOutputs.getOutputs(i);
-          if (ByteArray.toHexString(ECKey.computeAddress(pubKeyHash))
-                  .equals(ByteArray.toHexString(txOutput.getPubKeyHash().toByteArray()))
-                  && accumulated < amount) {
-
-            accumulated += txOutput.getValue();
-            long[] v = ArrayUtils.nullToEmpty(unspentOutputs.get(keyToHexString));
-            unspentOutputs.put(keyToHexString, ArrayUtils.add(v, i));
-          }
+    byte[] prefix = addressPrefix(ECKey.computeAddress(pubKeyHash));
+    try (Stream<Entry<byte[], byte[]>> entries = addressIndex.prefixStream(prefix)) {
+      Iterator<Entry<byte[], byte[]>> iterator = entries.iterator();
+      while (accumulated < amount && iterator.hasNext()) {
+        Entry<byte[], byte[]> entry = iterator.next();
+        TXOutput txOutput = parseOutput(entry.getValue());
+        if (txOutput == null) {
+          continue;
         }
-      } catch (InvalidProtocolBufferException e) {
-        logger.debug(e.getMessage(), e);
+
+        byte[] key = entry.getKey();
+        String keyToHexString = ByteArray.toHexString(
+            Arrays.copyOfRange(key, prefix.length, key.length - Integer.BYTES));
+        int index = ByteBuffer.wrap(key, key.length - Integer.BYTES, Integer.BYTES).getInt();
+
+        accumulated += txOutput.getValue();
+        long[] v = ArrayUtils.nullToEmpty(unspentOutputs.get(keyToHexString));
+        unspentOutputs.put(keyToHexString, ArrayUtils.add(v, index));
       }
     }
 
@@ -116,25 +146,77 @@ public class UtxoStore extends TronDatabase {
    * Find related UTXOs.
    */
   public ArrayList<TXOutput> findUtxo(byte[] address) {
-    return getDbSource().allKeys().stream()
-            .map(key -> {
-              try {
-                return TXOutputs.parseFrom(getDbSource().getData(key));
-              } catch (InvalidProtocolBufferException e) {
-                logger.debug(e.getMessage(), e);
-                return null;
-              }
-            })
-            .filter(Objects::nonNull)
-            .map(TXOutputs::getOutputsList)
-            .flatMap(List::stream)
-            .filter(txOutput -> ByteArray.toHexString(ECKey.computeAddress(address))
-                    .equals(ByteArray.toHexString(txOutput.getPubKeyHash().toByteArray())))
-            .collect(Collectors.toCollection(ArrayList::new));
+    byte[] prefix = addressPrefix(ECKey.computeAddress(address));
+    try (Stream<Entry<byte[], byte[]>> entries = addressIndex.prefixStream(prefix)) {
+      return entries
+          .map(entry -> parseOutput(entry.getValue()))
+          .filter(Objects::nonNull)
+          .collect(Collectors.toCollection(ArrayList::new));
+    }
+  }
+
+  /**
+   * Index the stored outputs if the index is empty, for stores written by older versions.
+   */
+  private void initAddressIndex() {
+    try (Stream<Entry<byte[], byte[]>> indexed = addressIndex.stream(null, null)) {
+      if (indexed.findAny().isPresent()) {
+        return;
+      }
+    }
+
+    Map<byte[], byte[]> rows = new HashMap<>();
+    try (Stream<Entry<byte[], byte[]>> entries = dbSource.stream(null, null)) {
+      entries.forEach(entry -> parseOutputs(entry.getValue()).forEach((index, txOutput) ->
+          rows.put(indexKey(txOutput.getPubKeyHash().toByteArray(), entry.getKey(), index),
+              txOutput.toByteArray())));
+    }
+    if (!rows.isEmpty()) {
+      addressIndex.updateByBatch(rows);
+      logger.info("index {} unspent outputs by address", rows.size());
+    }
+  }
+
+  private static byte[] addressPrefix(byte[] pubKeyHash) {
+    return ArrayUtils.add(pubKeyHash, 0, (byte) pubKeyHash.length);
+  }
+
+  private static byte[] indexKey(byte[] pubKeyHash, byte[] utxoKey, int index) {
+    return ByteBuffer.allocate(1 + pubKeyHash.length + utxoKey.length + Integer.BYTES)
+        .put(addressPrefix(pubKeyHash))
+        .put(utxoKey)
+        .putInt(index)
+        .array();
+  }
+
+  private static Map<Integer, TXOutput> parseOutputs(byte[] data) {
+    Map<Integer, TXOutput> outputs = new HashMap<>();
+    if (ArrayUtils.isEmpty(data)) {
+      return outputs;
+    }
+    try {
+      TXOutputs txOutputs = TXOutputs.parseFrom(data);
+      for (int i = 0, len = txOutputs.getOutputsCount(); i < len; i++) {
+        outputs.put(i, txOutputs.getOutputs(i));
+      }
+    } catch (InvalidProtocolBufferException e) {
+      logger.debug(e.getMessage(), e);
+    }
+    return outputs;
+  }
+
+  private static TXOutput parseOutput(byte[] data) {
+    try {
+      return TXOutput.parseFrom(data);
+    } catch (InvalidProtocolBufferException e) {
+      logger.debug(e.getMessage(), e);
+      return null;
+    }
   }
 
   public void close() {
     dbSource.closeDB();
+    addressIndex.closeDB();
   }
 
   @Override
@@ -1,7 +1,9 @@
 package org.tron.core.db;
 
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ArrayUtils;
 import org.tron.core.capsule.WitnessCapsule;
@@ -15,13 +17,13 @@ public class WitnessStore extends TronStoreWithRevoking<WitnessCapsule> {
 
   @Override
   public WitnessCapsule get(byte[] key) {
-    byte[] value = dbSource.getData(key);
+    byte[] value = getValue(key);
     return ArrayUtils.isEmpty(value) ? null : new WitnessCapsule(value);
   }
 
   @Override
   public boolean has(byte[] key) {
-    byte[] account = dbSource.getData(key);
+    byte[] account = getValue(key);
     logger.info("address is {},witness is {}", key, account);
     return null != account;
   }
@@ -52,9 +54,10 @@ public class WitnessStore extends TronStoreWithRevoking<WitnessCapsule> {
    * get all witnesses.
    */
   public List<WitnessCapsule> getAllWitnesses() {
-    return dbSource.allValues().stream().map(bytes ->
-        new WitnessCapsule(bytes)
-    ).collect(Collectors.toList());
+    try (Stream<Entry<byte[], byte[]>> entries = stream(null, null)) {
+      return entries.map(entry -> new WitnessCapsule(entry.getValue()))
+          .collect(Collectors.toList());
+    }
   }
 
 }
@@ -0,0 +1,121 @@
+package org.tron.core.db;
+
+import com.google.protobuf.ByteString;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ArrayUtils;
+import org.tron.common.utils.ByteArray;
+import org.tron.core.capsule.AccountCapsule;
+import org.tron.core.capsule.BytesCapsule;
+import org.tron.protos.Protocol.Account.Vote;
+
+/**
+ * Running tally of the account votes per witness address. Every account write adds the delta of
+ * the votes it counts for, so the maintenance reads the tally instead of summing the votes of all
+ * accounts. Like that scan, the votes of an account count only while they are within its share.
+ */
+@Slf4j
+public class WitnessVoteStore extends TronStoreWithRevoking<BytesCapsule> {
+
+  private static WitnessVoteStore instance;
+
+  private WitnessVoteStore(String dbName) {
+    super(dbName);
+  }
+
+  public static void destroy() {
+    instance = null;
+  }
+
+  /**
+   * create fun.
+   *
+   * @param dbName the name of database
+   */
+  public static WitnessVoteStore create(String dbName) {
+    if (instance == null) {
+      synchronized (WitnessVoteStore.class) {
+        if (instance == null) {
+          instance = new WitnessVoteStore(dbName);
+        }
+      }
+    }
+    return instance;
+  }
+
+  @Override
+  public BytesCapsule get(byte[] key) {
+    byte[] value = getValue(key);
+    return ArrayUtils.isEmpty(value) ? null : new BytesCapsule(value);
+  }
+
+  @Override
+  public boolean has(byte[] key) {
+    return null != getValue(key);
+  }
+
+  /**
+   * Get the votes of a witness address, 0 if it has none.
+   */
+  public long getVoteCount(byte[] address) {
+    byte[] value = getValue(address);
+    return ArrayUtils.isEmpty(value) ? 0 : ByteArray.toLong(value);
+  }
+
+  /**
+   * Add a vote delta to a witness address, an address left without votes is removed.
+   */
+  public void addVoteCount(byte[] address, long delta) {
+    if (delta == 0) {
+      return;
+    }
+
+    long voteCount = getVoteCount(address) + delta;
+    if (voteCount == 0) {
+      delete(address);
+    } else {
+      put(address, new BytesCapsule(ByteArray.fromLong(voteCount)));
+    }
+  }
+
+  /**
+   * Move the tally from the votes an account counted for to the ones it counts for now, either
+   * can be null for an account which doesn't exist.
+   */
+  public void updateVotes(AccountCapsule before, AccountCapsule after) {
+    Map<ByteString, Long> deltas = new HashMap<>();
+    getCountedVotes(before).forEach(vote ->
+        deltas.merge(vote.getVoteAddress(), -vote.getVoteCount(), Long::sum));
+    getCountedVotes(after).forEach(vote ->
+        deltas.merge(vote.getVoteAddress(), vote.getVoteCount(), Long::sum));
+    deltas.forEach((address, delta) -> addVoteCount(address.toByteArray(), delta));
+  }
+
+  /**
+   * Get the votes of an account which count, none if their sum is above its share.
+   */
+  public static List<Vote> getCountedVotes(AccountCapsule account) {
+    if (account == null) {
+      return Collections.emptyList();
+    }
+    long sum = account.getVotesList().stream().mapToLong(Vote::getVoteCount).sum();
+    return sum <= account.getShare() ? account.getVotesList() : Collections.emptyList();
+  }
+
+  /**
+   * Get the votes of every voted address.
+   */
+  public Map<ByteString, Long> getAllVoteCounts() {
+    Map<ByteString, Long> voteCounts = new HashMap<>();
+    try (Stream<Entry<byte[], byte[]>> entries = stream(null, null)) {
+      entries.forEach(entry -> voteCounts
+          .put(ByteString.copyFrom(entry.getKey()), ByteArray.toLong(entry.getValue())));
+    }
+    return voteCounts;
+  }
+}
@@ -40,6 +40,12 @@ public class BlockMessage extends TronMessage {
     return data;
   }
 
+  @Override
+  public int getSendDataSize() {
+    // a received message is kept parsed, don't serialize it again only for its size
+    return (data != null ? data.length : getBlock().getSerializedSize()) + 1;
+  }
+
   @Override
   public Class<?> getAnswerMessage() {
     return null;
@@ -1,6 +1,7 @@
 package org.tron.core.net.message;
 
 import com.google.protobuf.InvalidProtocolBufferException;
+import org.tron.common.utils.Sha256Hash;
 import org.tron.core.capsule.TransactionCapsule;
 import org.tron.protos.Protocol.Transaction;
 
@@ -8,6 +9,9 @@ public class TransactionMessage extends TronMessage {
 
   private Transaction trx;
 
+  // the hash of the bytes received, which the parsed transaction may not serialize back to
+  private Sha256Hash messageId;
+
   public TransactionMessage(byte[] packed) {
     super(packed);
     this.type = MessageTypes.TRX.asByte();
@@ -19,6 +23,16 @@ public class TransactionMessage extends TronMessage {
     this.type = MessageTypes.TRX.asByte();
   }
 
+  TransactionMessage(Transaction trx, Sha256Hash messageId) {
+    this(trx);
+    this.messageId = messageId;
+  }
+
+  @Override
+  public Sha256Hash getMessageId() {
+    return messageId != null ? messageId : super.getMessageId();
+  }
+
   @Override
   public MessageTypes getType() {
     return MessageTypes.fromByte(this.type);
@@ -32,6 +46,12 @@ public class TransactionMessage extends TronMessage {
     return data;
   }
 
+  @Override
+  public int getSendDataSize() {
+    // a received message is kept parsed, don't serialize it again only for its size
+    return (data != null ? data.length : getTransaction().getSerializedSize()) + 1;
+  }
+
   @Override
   public Class<?> getAnswerMessage() {
     return null;
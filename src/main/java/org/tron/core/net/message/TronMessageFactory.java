@@ -1,7 +1,14 @@
 package org.tron.core.net.message;
 
+import com.google.protobuf.CodedInputStream;
+import io.netty.buffer.ByteBuf;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import org.apache.commons.lang3.ArrayUtils;
 import org.tron.common.overlay.message.MessageFactory;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.protos.Protocol.Block;
+import org.tron.protos.Protocol.Transaction;
 
 /**
  * msg factory.
@@ -43,6 +50,34 @@ public class TronMessageFactory extends MessageFactory {
     }
   }
 
+  /**
+   * Blocks and transactions, the large and frequent messages, are parsed straight from the frame
+   * instead of from a copy of it. A transaction keeps the hash of the frame as its id, as it would
+   * with the bytes received.
+   */
+  @Override
+  public TronMessage create(byte type, ByteBuf payload) throws IOException {
+    ByteBuffer frame;
+    switch (MessageTypes.fromByte(type)) {
+      case TRX:
+        frame = readNioBuffer(payload);
+        Sha256Hash messageId = Sha256Hash.of(frame);
+        return new TransactionMessage(Transaction.parseFrom(CodedInputStream.newInstance(frame)),
+            messageId);
+      case BLOCK:
+        frame = readNioBuffer(payload);
+        return new BlockMessage(Block.parseFrom(CodedInputStream.newInstance(frame)));
+      default:
+        return create(type, readBytes(payload));
+    }
+  }
+
+  private static ByteBuffer readNioBuffer(ByteBuf payload) {
+    ByteBuffer frame = payload.nioBuffer();
+    payload.skipBytes(payload.readableBytes());
+    return frame;
+  }
+
   @Override
   public TronMessage create(byte[] data) {
     byte type = data[0];
@@ -15,6 +15,7 @@ import org.tron.core.capsule.BlockCapsule;
 import org.tron.core.capsule.BlockCapsule.BlockId;
 import org.tron.core.capsule.TransactionCapsule;
 import org.tron.core.config.Parameter.NodeConstant;
+import org.tron.core.db.BlockIndexStore.BlockIndex;
 import org.tron.core.db.BlockStore;
 import org.tron.core.db.Manager;
 import org.tron.core.exception.BadBlockException;
@@ -74,6 +75,8 @@ public class NodeDelegateImpl implements NodeDelegate {
   public void handleTransaction(TransactionCapsule trx) throws BadTransactionException {
     logger.info("handle transaction");
     try {
+      // checked before taking the manager lock, pushTransactions finds it verified
+      trx.validateSignature();
       dbManager.pushTransactions(trx);
     } catch (ContractValidateException e) {
       logger.info("Contract validate failed");
@@ -198,8 +201,9 @@ public class NodeDelegateImpl implements NodeDelegate {
 
   @Override
   public long getBlockTime(BlockId id) {
-    return dbManager.containBlock(id)
-        ? dbManager.getBlockById(id).getTimeStamp()
+    BlockIndex header = dbManager.getBlockHeader(id);
+    return header != null
+        ? header.getTimestamp()
         : dbManager.getGenesisBlock().getTimeStamp();
   }
 
@@ -6,15 +6,18 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import javafx.util.Pair;
@@ -144,15 +147,20 @@ public class NodeImpl extends PeerConnectionDelegate implements Node {
   private HashMap<Sha256Hash, Long> badAdvObj = new HashMap<>(); //TODO:need auto erase oldest obj
 
   //sync
-  private HashMap<BlockId, Long> syncBlockIdWeRequested = new HashMap<>();
+  private SyncBlockScheduler syncBlockScheduler = new SyncBlockScheduler();
 
   private Long unSyncNum = 0L;
 
   private Thread handleSyncBlockLoop;
 
-  private Set<BlockMessage> blockWaitToProc = new ConcurrentSet<>();
+  private Thread applySyncBlockLoop;
 
-  private Set<BlockMessage> blockWaitToProcBak = new ConcurrentSet<>();
+  //the blocks in chain order, each checked ahead of its application
+  private BlockingQueue<CompletableFuture<BlockCapsule>> syncBlockToApply =
+      new LinkedBlockingQueue<>(NodeConstant.SYNC_APPLY_QUEUE_SIZE);
+
+  private ExecutorService syncBlockVerifyExecutor = Executors
+      .newFixedThreadPool(Runtime.getRuntime().availableProcessors());
 
   private Set<BlockMessage> blockInProc = new ConcurrentSet<>();
 
@@ -241,9 +249,12 @@ public class NodeImpl extends PeerConnectionDelegate implements Node {
     loopAdvertiseInv.join();
     isAdvertiseActive = false;
     isFetchActive = true;
+    isHandleSyncBlockActive = false;
     advertiseLoopThread.join();
     advObjFetchLoopThread.join();
     handleSyncBlockLoop.join();
+    applySyncBlockLoop.join();
+    syncBlockVerifyExecutor.shutdown();
     disconnectInactiveExecutor.shutdown();
     cleanInventoryExecutor.shutdown();
   }
@@ -350,61 +361,56 @@ public class NodeImpl extends PeerConnectionDelegate implements Node {
 
     handleSyncBlockLoop = new Thread(() -> {
       while (isHandleSyncBlockActive) {
-        if (blockWaitToProcBak.isEmpty()) {
-          try {
-            Thread.sleep(1000);
+        try {
+          BlockMessage msg = syncBlockScheduler.takeNext(getActivePeer(), 1000);
+          if (msg == null || freshBlockId.contains(msg.getBlockId())) {
             continue;
-          } catch (InterruptedException e) {
-            logger.debug(e.getMessage(), e);
-          }
-        }
-
-        final boolean[] isBlockProc = {false};
-
-        do {
-          synchronized (blockWaitToProcBak) {
-            blockWaitToProc.addAll(blockWaitToProcBak);
-            //need lock here
-            blockWaitToProcBak.clear();
           }
 
-          isBlockProc[0] = false;
-          Set<BlockMessage> pool = new HashSet<>();
-          pool.addAll(blockWaitToProc);
-          pool.forEach(msg -> {
-            final boolean[] isFound = {false};
-            getActivePeer().stream()
-                .filter(peer ->
-                    !peer.getSyncBlockToFetch().isEmpty()
-                        && peer.getSyncBlockToFetch().peek().equals(msg.getBlockId()))
-                .forEach(peer -> {
-                  peer.getSyncBlockToFetch().pop();
-                  peer.getBlockInProc().add(msg.getBlockId());
-                  isFound[0] = true;
-                });
-
-            if (isFound[0]) {
-              if (!freshBlockId.contains(msg.getBlockId())) {
-                blockWaitToProc.remove(msg);
-                processSyncBlock(msg.getBlockCapsule());
-                isBlockProc[0] = true;
-              }
+          CompletableFuture<BlockCapsule> block = CompletableFuture.supplyAsync(() -> {
+            BlockCapsule blockCapsule = msg.getBlockCapsule();
+            preValidateSyncBlock(blockCapsule);
+            return blockCapsule;
+          }, syncBlockVerifyExecutor);
+          //wait while the apply queue is full
+          while (!syncBlockToApply.offer(block, 1, TimeUnit.SECONDS)) {
+            if (!isHandleSyncBlockActive) {
+              return;
             }
-          });
-        } while (isBlockProc[0]);
+          }
+        } catch (InterruptedException e) {
+          logger.debug(e.getMessage(), e);
+        }
       }
+    });
 
+    applySyncBlockLoop = new Thread(() -> {
+      while (isHandleSyncBlockActive) {
+        try {
+          CompletableFuture<BlockCapsule> block = syncBlockToApply.poll(1, TimeUnit.SECONDS);
+          if (block != null) {
+            processSyncBlock(block.join());
+          }
+        } catch (InterruptedException e) {
+          logger.debug(e.getMessage(), e);
+        } catch (Throwable t) {
+          logger.error("Unhandled exception", t);
+        }
+      }
     });
 
     //TODO: wait to refactor these threads.
     advertiseLoopThread.start();
     advObjFetchLoopThread.start();
     handleSyncBlockLoop.start();
+    applySyncBlockLoop.start();
 
     //terminate inactive loop
     disconnectInactiveExecutor.scheduleWithFixedDelay(() -> {
       try {
         disconnectInactive();
+        //give the timed out sync requests to other peers
+        startFetchSyncBlock();
       } catch (Throwable t) {
         logger.error("Unhandled exception", t);
       }
@@ -439,6 +445,7 @@ public class NodeImpl extends PeerConnectionDelegate implements Node {
             + "advObjWeRequestedNum: %d\n"
             + "unSyncNum: %d\n"
             + "blockWaitToProcess: %d\n"
+            + "blockWaitToApply: %d\n"
             + "syncBlockIdWeRequested: %d\n"
             + "badAdvObjSize: %d\n",
         del.getHeadBlockId().getNum(),
@@ -446,8 +453,9 @@ public class NodeImpl extends PeerConnectionDelegate implements Node {
         advObjToFetch.size(),
         advObjWeRequested.size(),
         getUnSyncNum(),
-        blockWaitToProc.size(),
-        syncBlockIdWeRequested.size(),
+        syncBlockScheduler.getReceivedNum(),
+        syncBlockToApply.size(),
+        syncBlockScheduler.getRequestedNum(),
         badAdvObj.size()
     ));
 
@@ -462,10 +470,10 @@ public class NodeImpl extends PeerConnectionDelegate implements Node {
           .filter(time -> time < Time.getCurrentMillis() - NetConstants.ADV_TIME_OUT)
           .findFirst().ifPresent(time -> isDisconnected[0] = true);
 
-      if (!isDisconnected[0]) {
-        peer.getSyncBlockRequested().values().stream()
-            .filter(time -> time < Time.getCurrentMillis() - NetConstants.SYNC_TIME_OUT)
-            .findFirst().ifPresent(time -> isDisconnected[0] = true);
+      // the timed out sync requests are left to the scheduler, which hands them to other peers
+      // and shrinks the window of the slow one, until the peer times out too often to be alive
+      if (syncBlockScheduler.isStalled(peer)) {
+        isDisconnected[0] = true;
       }
 
       //TODO:optimize here
@@ -539,7 +547,6 @@ public class NodeImpl extends PeerConnectionDelegate implements Node {
     //peer.setLastBlockPeerKnow((BlockId) blkMsg.getMessageId());
 
     HashMap<Sha256Hash, Long> advObjWeRequested = peer.getAdvObjWeRequested();
-    HashMap<BlockId, Long> syncBlockRequested = peer.getSyncBlockRequested();
     BlockId blockId = blkMsg.getBlockId();
     //logger.info("Block number is " + blkMsg.getBlockId().getNum());
 
@@ -548,24 +555,15 @@ public class NodeImpl extends PeerConnectionDelegate implements Node {
       advObjWeRequested.remove(blockId);
       processAdvBlock(peer, blkMsg.getBlockCapsule());
       startFetchItem();
-    } else if (syncBlockRequested.containsKey(blockId)) {
+    } else if (syncBlockScheduler.onBlock(peer, blkMsg, Time.getCurrentMillis())) {
       //sync mode
-      syncBlockRequested.remove(blockId);
-      //peer.getSyncBlockToFetch().remove(blockId);
-      syncBlockIdWeRequested.remove(blockId);
-      //TODO: maybe use consume pipe here better
-      blockWaitToProcBak.add(blkMsg);
-      //processSyncBlock(blkMsg.getBlockCapsule());
-      if (!peer.isBusy()) {
-        if (peer.getUnfetchSyncNum() > 0
-            && peer.getSyncBlockToFetch().size() <= NodeConstant.SYNC_FETCH_BATCH_NUM) {
-          syncNextBatchChainIds(peer);
-        } else {
-          //TODO: here should be a loop do this thing
-          //startFetchSyncBlock();
-        }
+      if (peer.getSyncChainRequested() == null
+          && peer.getUnfetchSyncNum() > 0
+          && peer.getSyncBlockToFetch().size() <= NodeConstant.SYNC_FETCH_BATCH_NUM) {
+        syncNextBatchChainIds(peer);
       }
-
+      //keep the window of this peer full
+      startFetchSyncBlock();
     }
   }
 
@@ -598,6 +596,17 @@ public class NodeImpl extends PeerConnectionDelegate implements Node {
     }
   }
 
+  private void preValidateSyncBlock(BlockCapsule block) {
+    //a block failing here is rejected again when it is pushed
+    try {
+      if (!block.preValidate()) {
+        logger.info("sync block {} has a bad signature or merkle root", block.getBlockId());
+      }
+    } catch (Exception e) {
+      logger.debug(e.getMessage(), e);
+    }
+  }
+
   private void processSyncBlock(BlockCapsule block) {
     //TODO: add processing backlog cache here, use multi thread
 
@@ -866,42 +875,11 @@ public class NodeImpl extends PeerConnectionDelegate implements Node {
   }
 
   private synchronized void startFetchSyncBlock() {
-    //TODO: check how many block is processing and decide if fetch more
-    HashMap<PeerConnection, List<BlockId>> send = new HashMap<>();
-    HashSet<BlockId> request = new HashSet<>();
-
-    getActivePeer().stream()
-        .filter(peer -> peer.isNeedSyncFromPeer() && !peer.isBusy())
-        .forEach(peer -> {
-          if (!send.containsKey(peer)) { //TODO: Attention multi thread here
-            send.put(peer, new LinkedList<>());
-          }
-          for (BlockId blockId :
-              peer.getSyncBlockToFetch()) {
-            if (!request.contains(blockId) //TODO: clean processing block
-                && !syncBlockIdWeRequested.containsKey(blockId)) {
-              send.get(peer).add(blockId);
-              request.add(blockId);
-              //TODO: check max block num to fetch from one peer.
-              //if (send.get(peer).size() > 200) { //Max Blocks peer get one time
-              //  break;
-              //}
-            }
-          }
+    syncBlockScheduler.schedule(getActivePeer(), Time.getCurrentMillis())
+        .forEach((peer, blockIds) -> {
+          List<Sha256Hash> ids = new LinkedList<>(blockIds);
+          peer.sendMessage(new FetchInvDataMessage(ids, InventoryType.BLOCK));
         });
-
-    send.forEach((peer, blockIds) -> {
-      //TODO: use collector
-      blockIds.forEach(blockId -> {
-        syncBlockIdWeRequested.put(blockId, System.currentTimeMillis());
-        peer.getSyncBlockRequested().put(blockId, System.currentTimeMillis());
-      });
-      List<Sha256Hash> ids = new LinkedList<>();
-      ids.addAll(blockIds);
-      peer.sendMessage(new FetchInvDataMessage(ids, InventoryType.BLOCK));
-    });
-
-    send.clear();
   }
 
   private void updateBlockWeBothHave(PeerConnection peer, BlockCapsule block) {
@@ -0,0 +1,216 @@
+package org.tron.core.net.node;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.tron.core.capsule.BlockCapsule.BlockId;
+import org.tron.core.config.Parameter.NetConstants;
+import org.tron.core.config.Parameter.NodeConstant;
+import org.tron.core.net.message.BlockMessage;
+import org.tron.core.net.peer.PeerConnection;
+
+/**
+ * Schedules the block download of the sync across the peers. Each peer keeps a window of blocks
+ * in flight sized to its measured throughput, the requests which time out go to other peers, and
+ * the received blocks wait in a reorder buffer until they head the chain of a peer. A peer which
+ * keeps timing out gets no more blocks.
+ */
+public class SyncBlockScheduler {
+
+  private static final double SPEED_WEIGHT = 0.2;
+
+  private final Map<BlockId, Request> requests = new HashMap<>();
+  private final Map<PeerConnection, PeerSpeed> speeds = new HashMap<>();
+  private final Map<BlockId, BlockMessage> received = new HashMap<>();
+
+  /**
+   * Release the requests of the timed out or gone peers and assign the blocks no one fetches,
+   * fastest peers first, in ranges of their free window.
+   *
+   * @return the block ids to fetch by peer
+   */
+  public synchronized Map<PeerConnection, List<BlockId>> schedule(
+      Collection<PeerConnection> peers, long now) {
+    Set<BlockId> wanted = new HashSet<>();
+    peers.forEach(peer -> wanted.addAll(peer.getSyncBlockToFetch()));
+    received.keySet().retainAll(wanted);
+    speeds.keySet().retainAll(peers);
+
+    Set<PeerSpeed> timedOut = new HashSet<>();
+    Iterator<Entry<BlockId, Request>> iterator = requests.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Entry<BlockId, Request> entry = iterator.next();
+      Request request = entry.getValue();
+      PeerSpeed speed = speeds.get(request.peer);
+      if (speed == null || now - request.time > NetConstants.SYNC_TIME_OUT) {
+        iterator.remove();
+        request.peer.getSyncBlockRequested().remove(entry.getKey());
+        if (speed != null) {
+          speed.inFlight--;
+          timedOut.add(speed);
+        }
+      }
+    }
+    timedOut.forEach(PeerSpeed::onTimeout);
+
+    List<PeerConnection> candidates = peers.stream()
+        .filter(PeerConnection::isNeedSyncFromPeer)
+        .filter(peer -> !isStalled(peer))
+        .sorted(Comparator.comparingDouble(peer -> getSpeed(peer).msPerBlock))
+        .collect(Collectors.toList());
+
+    Map<PeerConnection, List<BlockId>> send = new LinkedHashMap<>();
+    for (PeerConnection peer : candidates) {
+      PeerSpeed speed = getSpeed(peer);
+      int free = speed.getWindow() - speed.inFlight;
+      // top up once half of the window is back, so requests stay few and large
+      if (free < Math.max(1, speed.getWindow() / 2)) {
+        continue;
+      }
+
+      List<BlockId> blockIds = new LinkedList<>();
+      for (BlockId blockId : peer.getSyncBlockToFetch()) {
+        if (blockIds.size() >= free) {
+          break;
+        }
+        if (!requests.containsKey(blockId) && !received.containsKey(blockId)) {
+          requests.put(blockId, new Request(peer, now));
+          peer.getSyncBlockRequested().put(blockId, now);
+          blockIds.add(blockId);
+        }
+      }
+
+      if (!blockIds.isEmpty()) {
+        speed.inFlight += blockIds.size();
+        send.put(peer, blockIds);
+      }
+    }
+    return send;
+  }
+
+  /**
+   * Buffer a block received from a peer.
+   *
+   * @return false if it wasn't requested from this peer
+   */
+  public synchronized boolean onBlock(PeerConnection peer, BlockMessage block, long now) {
+    BlockId blockId = block.getBlockId();
+    Request request = requests.get(blockId);
+    if (request == null || request.peer != peer) {
+      return false;
+    }
+
+    requests.remove(blockId);
+    peer.getSyncBlockRequested().remove(blockId);
+    PeerSpeed speed = speeds.get(peer);
+    if (speed != null) {
+      speed.onBlock(request.time, now);
+    }
+    received.put(blockId, block);
+    notifyAll();
+    return true;
+  }
+
+  /**
+   * Take the next block of the chain of a peer, waiting up to the timeout for it to be received.
+   * It is popped from the chains of the peers it heads and marked in process for them.
+   *
+   * @return null if no peer's next block was received in time
+   */
+  public synchronized BlockMessage takeNext(Collection<PeerConnection> peers, long timeout)
+      throws InterruptedException {
+    BlockMessage block = pollNext(peers);
+    if (block == null) {
+      wait(timeout);
+      block = pollNext(peers);
+    }
+    return block;
+  }
+
+  private BlockMessage pollNext(Collection<PeerConnection> peers) {
+    for (PeerConnection peer : peers) {
+      BlockId head = peer.getSyncBlockToFetch().peek();
+      if (head == null || !received.containsKey(head)) {
+        continue;
+      }
+
+      peers.stream()
+          .filter(p -> head.equals(p.getSyncBlockToFetch().peek()))
+          .forEach(p -> {
+            p.getSyncBlockToFetch().pop();
+            p.getBlockInProc().add(head);
+          });
+      return received.remove(head);
+    }
+    return null;
+  }
+
+  /**
+   * Whether the requests to a peer timed out too many times in a row for it to get blocks again.
+   */
+  public synchronized boolean isStalled(PeerConnection peer) {
+    PeerSpeed speed = speeds.get(peer);
+    return speed != null && speed.timeouts >= NetConstants.SYNC_TIME_OUT_MAX_COUNT;
+  }
+
+  public synchronized int getRequestedNum() {
+    return requests.size();
+  }
+
+  public synchronized int getReceivedNum() {
+    return received.size();
+  }
+
+  private PeerSpeed getSpeed(PeerConnection peer) {
+    return speeds.computeIfAbsent(peer, p -> new PeerSpeed());
+  }
+
+  private static class Request {
+
+    private final PeerConnection peer;
+    private final long time;
+
+    Request(PeerConnection peer, long time) {
+      this.peer = peer;
+      this.time = time;
+    }
+  }
+
+  private static class PeerSpeed {
+
+    // a new peer starts with the smallest window
+    private double msPerBlock =
+        (double) NodeConstant.SYNC_FETCH_WINDOW_TIME / NodeConstant.SYNC_FETCH_MIN_PER_PEER;
+    private long lastBlockTime;
+    private int inFlight;
+    private int timeouts;
+
+    int getWindow() {
+      long window = (long) (NodeConstant.SYNC_FETCH_WINDOW_TIME / Math.max(msPerBlock, 1));
+      return (int) Math.max(NodeConstant.SYNC_FETCH_MIN_PER_PEER,
+          Math.min(NodeConstant.SYNC_FETCH_MAX_PER_PEER, window));
+    }
+
+    void onBlock(long requestTime, long now) {
+      long elapsed = Math.max(0, now - Math.max(requestTime, lastBlockTime));
+      msPerBlock = msPerBlock * (1 - SPEED_WEIGHT) + elapsed * SPEED_WEIGHT;
+      lastBlockTime = now;
+      inFlight--;
+      timeouts = 0;
+    }
+
+    void onTimeout() {
+      msPerBlock *= 2;
+      timeouts++;
+    }
+  }
+}
@@ -10,6 +10,7 @@ import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.tron.api.GrpcAPI;
 import org.tron.api.GrpcAPI.AccountList;
+import org.tron.api.GrpcAPI.AccountPaginated;
 import org.tron.api.GrpcAPI.Address;
 import org.tron.api.GrpcAPI.AssetIssueList;
 import org.tron.api.GrpcAPI.BytesMessage;
@@ -17,6 +18,7 @@ import org.tron.api.GrpcAPI.EmptyMessage;
 import org.tron.api.GrpcAPI.Node;
 import org.tron.api.GrpcAPI.NodeList;
 import org.tron.api.GrpcAPI.NumberMessage;
+import org.tron.api.GrpcAPI.PaginatedMessage;
 import org.tron.api.GrpcAPI.WitnessList;
 import org.tron.common.application.Application;
 import org.tron.common.application.Service;
@@ -324,6 +326,29 @@ public class RpcApiService implements Service {
       responseObserver.onCompleted();
     }
 
+    @Override
+    public void getPaginatedAssetIssueList(PaginatedMessage request,
+        StreamObserver<AssetIssueList> responseObserver) {
+      responseObserver.onNext(wallet.getAssetIssueList(request.getOffset(), request.getLimit()));
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void getPaginatedAssetIssueByAccount(AccountPaginated request,
+        StreamObserver<AssetIssueList> responseObserver) {
+      responseObserver.onNext(wallet.getAssetIssueByAccount(request.getAccount().getAddress(),
+          request.getOffset(), request.getLimit()));
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void getTransactionsByAccount(AccountPaginated request,
+        StreamObserver<Transaction> responseObserver) {
+      wallet.getTransactionsByAccount(request.getAccount().getAddress(), request.getOffset(),
+          request.getLimit()).forEach(responseObserver::onNext);
+      responseObserver.onCompleted();
+    }
+
     @Override
     public void totalTransaction(EmptyMessage request,
         StreamObserver<NumberMessage> responseObserver) {
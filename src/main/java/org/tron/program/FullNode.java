@@ -38,6 +38,7 @@ public class FullNode {
     appT.initServices(cfgArgs);
     appT.startServices();
     appT.startup();
+    Runtime.getRuntime().addShutdownHook(new Thread(appT::shutdown));
 
     rpcApiService.blockUntilShutdown();
   }
@@ -1,11 +1,14 @@
 package org.tron.common.crypto;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.security.SignatureException;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.Test;
 import org.spongycastle.util.encoders.Hex;
 import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.Sha256Hash;
 import org.tron.core.Wallet;
 
 @Slf4j
@@ -21,4 +24,18 @@ public class ECKeyTest {
     assertEquals(Wallet.getAddressPreFixString() + "125b6c87b3d67114b3873977888c34582f27bbb0",
         ByteArray.toHexString(key.getAddress()));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testSignatureToAddressCached() throws SignatureException {
+    final ECKey key = new ECKey();
+    byte[] hash = Sha256Hash.of("testSignatureToAddressCached".getBytes()).getBytes();
+    String signature = key.sign(hash).toBase64();
+
+    long missCount = SignatureCache.getMissCount();
+    long hitCount = SignatureCache.getHitCount();
+    assertArrayEquals(key.getAddress(), ECKey.signatureToAddress(hash, signature));
+    assertArrayEquals(key.getAddress(), ECKey.signatureToAddress(hash, signature));
+    assertEquals(missCount + 1, SignatureCache.getMissCount());
+    assertEquals(hitCount + 1, SignatureCache.getHitCount());
+  }
+}
@@ -0,0 +1,100 @@
+package org.tron.common.overlay.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tron.core.config.Parameter.NetConstants;
+
+public class FrameCompressionCodecTest {
+
+  private static final int THRESHOLD = 64;
+
+  private WireTrafficStats trafficStats;
+  private EmbeddedChannel sender;
+  private EmbeddedChannel receiver;
+
+  @Before
+  public void init() {
+    trafficStats = new WireTrafficStats();
+    sender = new EmbeddedChannel(new FrameCompressionCodec(THRESHOLD, trafficStats));
+    receiver = new EmbeddedChannel(new FrameCompressionCodec(THRESHOLD, trafficStats));
+  }
+
+  @After
+  public void destroy() {
+    sender.finishAndReleaseAll();
+    receiver.finishAndReleaseAll();
+    trafficStats.close();
+  }
+
+  private byte[] transfer(byte[] data, byte expectedFlag) {
+    Assert.assertTrue(sender.writeOutbound(Unpooled.wrappedBuffer(data)));
+    ByteBuf frame = sender.readOutbound();
+    Assert.assertEquals(expectedFlag, frame.getByte(frame.readerIndex()));
+
+    Assert.assertTrue(receiver.writeInbound(frame));
+    ByteBuf message = receiver.readInbound();
+    byte[] received = new byte[message.readableBytes()];
+    message.readBytes(received);
+    message.release();
+    return received;
+  }
+
+  @Test
+  public void roundTrip() {
+    byte[] data = new byte[4096];
+    Arrays.fill(data, (byte) 7);
+    Assert.assertArrayEquals(data, transfer(data, FrameCompressionCodec.SNAPPY));
+    Assert.assertTrue(trafficStats.getBytesSaved(sender.remoteAddress()) > 0);
+  }
+
+  @Test
+  public void belowThreshold() {
+    byte[] data = new byte[THRESHOLD - 1];
+    Arrays.fill(data, (byte) 7);
+    Assert.assertArrayEquals(data, transfer(data, FrameCompressionCodec.RAW));
+  }
+
+  @Test
+  public void rejectOversizedPreamble() {
+    ByteBuf frame = Unpooled.buffer();
+    frame.writeByte(FrameCompressionCodec.SNAPPY);
+    int length = NetConstants.MAX_MESSAGE_SIZE + 1;
+    while ((length & ~0x7f) != 0) {
+      frame.writeByte((length & 0x7f) | 0x80);
+      length >>>= 7;
+    }
+    frame.writeByte(length);
+    frame.writeBytes(new byte[16]);
+
+    try {
+      receiver.writeInbound(frame);
+      Assert.fail("the oversized frame was accepted");
+    } catch (CorruptedFrameException e) {
+      Assert.assertNull(receiver.readInbound());
+    }
+  }
+
+  @Test
+  public void rejectShortFrame() {
+    // declares 100 bytes but carries a 4 bytes literal
+    ByteBuf frame = Unpooled.buffer();
+    frame.writeByte(FrameCompressionCodec.SNAPPY);
+    frame.writeByte(100);
+    frame.writeByte(3 << 2);
+    frame.writeBytes(new byte[]{1, 2, 3, 4});
+
+    try {
+      receiver.writeInbound(frame);
+      Assert.fail("the short frame was accepted");
+    } catch (CorruptedFrameException e) {
+      Assert.assertNull(receiver.readInbound());
+    }
+  }
+}
@@ -24,8 +24,12 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -148,6 +152,33 @@ public class LevelDbDataSourceImplTest {
     dataSource.resetDb();
   }
 
+  @Test
+  public void testStream() {
+    LevelDbDataSourceImpl dataSource = new LevelDbDataSourceImpl(
+        Args.getInstance().getOutputDirectory(), "test_stream");
+    dataSource.initDB();
+    dataSource.resetDb();
+
+    Map<byte[], byte[]> rows = new HashMap<>();
+    for (String key : new String[]{"a1", "a2", "a3", "b1", "b2"}) {
+      rows.put(key.getBytes(), key.getBytes());
+    }
+    dataSource.updateByBatch(rows);
+
+    try (Stream<Entry<byte[], byte[]>> entries = dataSource.prefixStream("a".getBytes())) {
+      assertEquals(3, entries.count());
+    }
+    try (Stream<Entry<byte[], byte[]>> entries = dataSource
+        .stream("a2".getBytes(), "b2".getBytes())) {
+      assertEquals(Arrays.asList("a2", "a3", "b1"), entries
+          .map(entry -> ByteArray.toStr(entry.getKey()))
+          .collect(Collectors.toList()));
+    }
+    // the stream releases the lock once closed
+    dataSource.resetDb();
+    assertEquals(0, dataSource.getTotal());
+  }
+
   @Test(timeout = 1000)
   public void testLockReleased() {
     dataSourceTest.initDB();
@@ -4,6 +4,7 @@ import com.google.protobuf.Any;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 import java.io.File;
+import java.util.Collections;
 import java.util.Date;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.AfterClass;
@@ -101,11 +102,19 @@ public class AssetIssueActuatorTest {
 
       Assert.assertEquals(owner.getBalance(), 0L);
       Assert.assertEquals(owner.getAssetMap().get(NAME).longValue(), 10000L);
+      Assert.assertEquals(Collections.singletonList(ByteString.copyFromUtf8(NAME)),
+          dbManager.getAssetIssueIndexStore().getAssetIssueNames(
+              ByteString.copyFrom(ByteArray.fromHexString(OWNER_ADDRESS)), 0, 10));
     } catch (ContractValidateException e) {
       Assert.assertFalse(e instanceof ContractValidateException);
     } catch (ContractExeException e) {
       Assert.assertFalse(e instanceof ContractExeException);
     } finally {
+      AssetIssueCapsule assetIssueCapsule = dbManager.getAssetIssueStore()
+          .get(ByteArray.fromString(NAME));
+      if (assetIssueCapsule != null) {
+        dbManager.getAssetIssueIndexStore().delete(assetIssueCapsule);
+      }
       dbManager.getAssetIssueStore().delete(ByteArray.fromString(NAME));
     }
   }
@@ -144,6 +153,7 @@ public class AssetIssueActuatorTest {
   @AfterClass
   public static void destroy() {
     Args.clearParam();
+    dbManager.destory();
     if (FileUtil.deleteDir(new File(dbPath))) {
       logger.info("Release resources successful.");
     } else {
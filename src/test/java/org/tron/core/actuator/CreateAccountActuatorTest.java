@@ -121,6 +121,7 @@ public class CreateAccountActuatorTest {
   @AfterClass
   public static void destroy() {
     Args.clearParam();
+    dbManager.destory();
     if (FileUtil.deleteDir(new File(dbPath))) {
       logger.info("Release resources successful.");
     } else {
@@ -71,6 +71,7 @@ public class ParticipateAssetIssueActuatorTest {
   @AfterClass
   public static void destroy() {
     Args.clearParam();
+    dbManager.destory();
     if (FileUtil.deleteDir(new File(dbPath))) {
       logger.info("Release resources successful.");
     } else {
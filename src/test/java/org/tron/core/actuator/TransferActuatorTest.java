@@ -57,6 +57,7 @@ public class TransferActuatorTest {
   @AfterClass
   public static void destroy() {
     Args.clearParam();
+    dbManager.destory();
     if (FileUtil.deleteDir(new File(dbPath))) {
       logger.info("Release resources successful.");
     } else {
@@ -204,6 +204,7 @@ public class TransferAssetActuatorTest {
   @AfterClass
   public static void destroy() {
     Args.clearParam();
+    dbManager.destory();
     if (FileUtil.deleteDir(new File(dbPath))) {
       logger.info("Release resources successful.");
     } else {
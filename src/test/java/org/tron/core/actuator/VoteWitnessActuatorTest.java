@@ -0,0 +1,180 @@
+package org.tron.core.actuator;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import java.io.File;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.FileUtil;
+import org.tron.core.Wallet;
+import org.tron.core.capsule.AccountCapsule;
+import org.tron.core.capsule.TransactionResultCapsule;
+import org.tron.core.capsule.WitnessCapsule;
+import org.tron.core.config.args.Args;
+import org.tron.core.db.Manager;
+import org.tron.core.exception.ContractExeException;
+import org.tron.core.exception.ContractValidateException;
+import org.tron.protos.Contract;
+import org.tron.protos.Contract.VoteWitnessContract.Vote;
+import org.tron.protos.Protocol.AccountType;
+import org.tron.protos.Protocol.Transaction.Result.code;
+
+@Slf4j
+public class VoteWitnessActuatorTest {
+
+  private static Manager dbManager;
+  private static final String dbPath = "output_vote_witness_test";
+
+  private static final String OWNER_ADDRESS =
+      Wallet.getAddressPreFixString() + "548794500882809695a8a687866e76d4271a1abc";
+  private static final String OTHER_ADDRESS =
+      Wallet.getAddressPreFixString() + "abd4b9367799eaa3197fecb144eb71de1e049abc";
+  private static final String SPENDER_ADDRESS =
+      Wallet.getAddressPreFixString() + "548794500882809695a8a687866e76d4271a1ccc";
+  private static final String WITNESS_ADDRESS =
+      Wallet.getAddressPreFixString() + "548794500882809695a8a687866e76d4271a1aaa";
+  private static final String OTHER_WITNESS_ADDRESS =
+      Wallet.getAddressPreFixString() + "548794500882809695a8a687866e76d4271a1bbb";
+
+  /**
+   * Init data.
+   */
+  @BeforeClass
+  public static void init() {
+    Args.setParam(new String[]{"--output-directory", dbPath},
+        "config-junit.conf");
+    dbManager = new Manager();
+    dbManager.init();
+
+    for (String address : new String[]{OWNER_ADDRESS, OTHER_ADDRESS, SPENDER_ADDRESS}) {
+      AccountCapsule accountCapsule = new AccountCapsule(ByteString.copyFromUtf8("voter"),
+          ByteString.copyFrom(ByteArray.fromHexString(address)), AccountType.Normal,
+          100_000_000L);
+      dbManager.getAccountStore().put(accountCapsule.createDbKey(), accountCapsule);
+    }
+    for (String address : new String[]{WITNESS_ADDRESS, OTHER_WITNESS_ADDRESS}) {
+      ByteString witnessAddress = ByteString.copyFrom(ByteArray.fromHexString(address));
+      AccountCapsule accountCapsule = new AccountCapsule(ByteString.copyFromUtf8("witness"),
+          witnessAddress, AccountType.Normal, 0L);
+      dbManager.getAccountStore().put(accountCapsule.createDbKey(), accountCapsule);
+      WitnessCapsule witnessCapsule = new WitnessCapsule(witnessAddress, 0L, "");
+      dbManager.getWitnessStore().put(witnessCapsule.createDbKey(), witnessCapsule);
+    }
+  }
+
+  /**
+   * Release resources.
+   */
+  @AfterClass
+  public static void destroy() {
+    Args.clearParam();
+    dbManager.destory();
+    if (FileUtil.deleteDir(new File(dbPath))) {
+      logger.info("Release resources successful.");
+    } else {
+      logger.info("Release resources failure.");
+    }
+  }
+
+  private Any getContract(String ownerAddress, long witnessVotes, long otherWitnessVotes) {
+    Contract.VoteWitnessContract.Builder builder = Contract.VoteWitnessContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(ByteArray.fromHexString(ownerAddress)));
+    if (witnessVotes > 0) {
+      builder.addVotes(Vote.newBuilder()
+          .setVoteAddress(ByteString.copyFrom(ByteArray.fromHexString(WITNESS_ADDRESS)))
+          .setVoteCount(witnessVotes));
+    }
+    if (otherWitnessVotes > 0) {
+      builder.addVotes(Vote.newBuilder()
+          .setVoteAddress(ByteString.copyFrom(ByteArray.fromHexString(OTHER_WITNESS_ADDRESS)))
+          .setVoteCount(otherWitnessVotes));
+    }
+    return Any.pack(builder.build());
+  }
+
+  private void vote(String ownerAddress, long witnessVotes, long otherWitnessVotes)
+      throws ContractValidateException, ContractExeException {
+    VoteWitnessActuator actuator = new VoteWitnessActuator(
+        getContract(ownerAddress, witnessVotes, otherWitnessVotes), dbManager);
+    TransactionResultCapsule ret = new TransactionResultCapsule();
+    actuator.validate();
+    actuator.execute(ret);
+    Assert.assertEquals(code.SUCESS, ret.getInstance().getRet());
+  }
+
+  private void transfer(String ownerAddress, String toAddress, long amount)
+      throws ContractValidateException, ContractExeException {
+    TransferActuator actuator = new TransferActuator(Any.pack(Contract.TransferContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(ByteArray.fromHexString(ownerAddress)))
+        .setToAddress(ByteString.copyFrom(ByteArray.fromHexString(toAddress)))
+        .setAmount(amount)
+        .build()), dbManager);
+    TransactionResultCapsule ret = new TransactionResultCapsule();
+    actuator.validate();
+    actuator.execute(ret);
+    Assert.assertEquals(code.SUCESS, ret.getInstance().getRet());
+  }
+
+  @Test
+  public void voteTallyFollowsShare() {
+    try {
+      long votes = dbManager.getWitnessVoteStore()
+          .getVoteCount(ByteArray.fromHexString(WITNESS_ADDRESS));
+      vote(SPENDER_ADDRESS, 40, 0);
+      Assert.assertEquals(votes + 40, dbManager.getWitnessVoteStore()
+          .getVoteCount(ByteArray.fromHexString(WITNESS_ADDRESS)));
+
+      // the votes stop counting once the balance is spent below them
+      long balance = dbManager.getAccountStore()
+          .get(ByteArray.fromHexString(SPENDER_ADDRESS)).getBalance();
+      transfer(SPENDER_ADDRESS, OTHER_ADDRESS, balance - 10);
+      Assert.assertEquals(dbManager.countVoteByAccounts(),
+          dbManager.getWitnessVoteStore().getAllVoteCounts());
+      Assert.assertEquals(votes, dbManager.getWitnessVoteStore()
+          .getVoteCount(ByteArray.fromHexString(WITNESS_ADDRESS)));
+
+      // and count again when the share is back
+      transfer(OTHER_ADDRESS, SPENDER_ADDRESS, 100);
+      Assert.assertEquals(dbManager.countVoteByAccounts(),
+          dbManager.getWitnessVoteStore().getAllVoteCounts());
+      Assert.assertEquals(votes + 40, dbManager.getWitnessVoteStore()
+          .getVoteCount(ByteArray.fromHexString(WITNESS_ADDRESS)));
+
+      // withdraw them, the other test checks absolute counts
+      vote(SPENDER_ADDRESS, 0, 0);
+      Assert.assertEquals(votes, dbManager.getWitnessVoteStore()
+          .getVoteCount(ByteArray.fromHexString(WITNESS_ADDRESS)));
+    } catch (ContractValidateException e) {
+      Assert.assertFalse(e instanceof ContractValidateException);
+    } catch (ContractExeException e) {
+      Assert.assertFalse(e instanceof ContractExeException);
+    }
+  }
+
+  @Test
+  public void voteTallyMatchesFullScan() {
+    try {
+      vote(OWNER_ADDRESS, 10, 20);
+      vote(OTHER_ADDRESS, 30, 0);
+      Assert.assertEquals(dbManager.countVoteByAccounts(),
+          dbManager.getWitnessVoteStore().getAllVoteCounts());
+
+      // a new vote replaces the previous votes of the account
+      vote(OWNER_ADDRESS, 0, 50);
+      Assert.assertEquals(dbManager.countVoteByAccounts(),
+          dbManager.getWitnessVoteStore().getAllVoteCounts());
+      Assert.assertEquals(30, dbManager.getWitnessVoteStore()
+          .getVoteCount(ByteArray.fromHexString(WITNESS_ADDRESS)));
+      Assert.assertEquals(50, dbManager.getWitnessVoteStore()
+          .getVoteCount(ByteArray.fromHexString(OTHER_WITNESS_ADDRESS)));
+    } catch (ContractValidateException e) {
+      Assert.assertFalse(e instanceof ContractValidateException);
+    } catch (ContractExeException e) {
+      Assert.assertFalse(e instanceof ContractExeException);
+    }
+  }
+}
@@ -7,11 +7,13 @@ import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.tron.common.crypto.ECKey;
 import org.tron.common.utils.ByteArray;
 import org.tron.common.utils.FileUtil;
 import org.tron.common.utils.Sha256Hash;
 import org.tron.core.Constant;
 import org.tron.core.config.args.Args;
+import org.tron.core.exception.ValidateSignatureException;
 
 @Slf4j
 public class BlockCapsuleTest {
@@ -92,4 +94,22 @@ public class BlockCapsuleTest {
     Assert.assertEquals(1234L, blockCapsule0.getTimeStamp());
   }
 
+  @Test
+  public void testPreValidate() throws ValidateSignatureException {
+    ECKey key = new ECKey();
+    BlockCapsule blockCapsule = new BlockCapsule(1, Sha256Hash.ZERO_HASH.getByteString(), 1234,
+        ByteString.copyFrom(key.getAddress()));
+    Assert.assertFalse(blockCapsule.isVerified());
+
+    blockCapsule.setMerkleRoot();
+    blockCapsule.sign(key.getPrivKeyBytes());
+    Assert.assertTrue(blockCapsule.preValidate());
+    Assert.assertTrue(blockCapsule.isVerified());
+
+    // a new transaction doesn't match the merkle root any more
+    blockCapsule.addTransaction(new TransactionCapsule("123", 1L));
+    Assert.assertFalse(blockCapsule.isVerified());
+    Assert.assertFalse(blockCapsule.preValidate());
+  }
+
 }
\ No newline at end of file
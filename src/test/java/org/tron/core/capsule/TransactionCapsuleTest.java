@@ -0,0 +1,33 @@
+package org.tron.core.capsule;
+
+import com.google.protobuf.ByteString;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tron.common.crypto.ECKey;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.protos.Contract.VoteWitnessContract;
+
+@Slf4j
+public class TransactionCapsuleTest {
+
+  @Test
+  public void testMemoizedHashes() {
+    ECKey key = new ECKey();
+    TransactionCapsule trx = new TransactionCapsule(VoteWitnessContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(key.getAddress())).build());
+
+    Sha256Hash id = trx.getTransactionId();
+    Sha256Hash rawHash = trx.getRawHash();
+    Assert.assertSame(id, trx.getTransactionId());
+    Assert.assertSame(id, trx.getHash());
+    Assert.assertSame(rawHash, trx.getRawHash());
+    Assert.assertArrayEquals(key.getAddress(), trx.getOwners().get(0));
+
+    // signing changes the id but not the raw data
+    trx.sign(key.getPrivKeyBytes());
+    Assert.assertNotEquals(id, trx.getTransactionId());
+    Assert.assertEquals(Sha256Hash.of(trx.getInstance().toByteArray()), trx.getTransactionId());
+    Assert.assertSame(rawHash, trx.getRawHash());
+  }
+}
@@ -0,0 +1,49 @@
+package org.tron.core.capsule.utils;
+
+import com.google.protobuf.ByteString;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tron.common.crypto.ECKey;
+import org.tron.core.capsule.TransactionCapsule;
+import org.tron.core.exception.ValidateSignatureException;
+import org.tron.protos.Contract.VoteWitnessContract;
+
+@Slf4j
+public class SignatureVerifierTest {
+
+  private static TransactionCapsule newSignedTransaction(ECKey owner, ECKey signer) {
+    TransactionCapsule trx = new TransactionCapsule(VoteWitnessContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(owner.getAddress())).build());
+    byte[] signature = signer.sign(trx.getRawHash().getBytes()).toByteArray();
+    return new TransactionCapsule(trx.getInstance().toBuilder()
+        .addSignature(ByteString.copyFrom(signature)).build());
+  }
+
+  @Test
+  public void verifyBatch() throws ValidateSignatureException {
+    List<TransactionCapsule> transactions = IntStream.range(0, 8)
+        .mapToObj(i -> new ECKey())
+        .map(key -> newSignedTransaction(key, key))
+        .collect(Collectors.toList());
+
+    SignatureVerifier.verify(transactions);
+    for (TransactionCapsule trx : transactions) {
+      Assert.assertTrue(trx.validateSignature());
+    }
+  }
+
+  @Test(expected = ValidateSignatureException.class)
+  public void verifyBatchWithWrongSignature() throws ValidateSignatureException {
+    List<TransactionCapsule> transactions = IntStream.range(0, 8)
+        .mapToObj(i -> new ECKey())
+        .map(key -> newSignedTransaction(key, key))
+        .collect(Collectors.toList());
+    transactions.add(newSignedTransaction(new ECKey(), new ECKey()));
+
+    SignatureVerifier.verify(transactions);
+  }
+}
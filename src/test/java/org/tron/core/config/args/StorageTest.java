@@ -15,9 +15,12 @@
 
 package org.tron.core.config.args;
 
+import org.iq80.leveldb.CompressionType;
+import org.iq80.leveldb.Options;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.tron.core.config.args.Storage.Property;
 
 public class StorageTest {
 
@@ -42,4 +45,26 @@ public class StorageTest {
   public void getStorage() {
     Assert.assertEquals("java-tron", storage.getDirectory());
   }
+
+  @Test
+  public void newDbOptionsByPreset() {
+    Assert.assertEquals(4 * 1024, storage.newDbOptions("account").blockSize());
+    Assert.assertEquals(64 * 1024, storage.newDbOptions("block").blockSize());
+    Assert.assertEquals(64 * 1024, storage.newDbOptions("block-index").blockSize());
+    Assert.assertEquals(64 * 1024, storage.newDbOptions("trans-history").blockSize());
+  }
+
+  @Test
+  public void newDbOptionsWithProperty() {
+    Property property = new Property();
+    property.setName("account");
+    property.setCacheSize(1024L);
+    property.setCompressionType(CompressionType.NONE);
+    storage.getPropertyMap().put(property.getName(), property);
+
+    Options dbOptions = storage.newDbOptions("account");
+    Assert.assertEquals(1024L, dbOptions.cacheSize());
+    Assert.assertEquals(CompressionType.NONE, dbOptions.compressionType());
+    Assert.assertEquals(4 * 1024, dbOptions.blockSize());
+  }
 }
@@ -11,6 +11,8 @@ import org.tron.common.utils.FileUtil;
 import org.tron.core.Constant;
 import org.tron.core.capsule.AccountCapsule;
 import org.tron.core.config.args.Args;
+import org.tron.core.db.AbstractRevokingStore.Dialog;
+import org.tron.core.exception.RevokingStoreIllegalStateException;
 import org.tron.protos.Protocol.AccountType;
 
 public class AccountStoreTest {
@@ -52,4 +54,28 @@ public class AccountStoreTest {
     ;
     Assert.assertTrue(AccountStoreTest.has(data));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void cacheRevoked() throws RevokingStoreIllegalStateException {
+    byte[] key = TransactionStoreTest.randomBytes(32);
+    AccountCapsule accountCapsule = new AccountCapsule(ByteString.copyFrom(key),
+        ByteString.copyFrom(accountName), AccountType.forNumber(1));
+    accountCapsule.setBalance(100);
+    AccountStoreTest.put(key, accountCapsule);
+
+    long hitCount = AccountStoreTest.getCacheStats().hitCount();
+    Assert.assertEquals(100, AccountStoreTest.get(key).getBalance());
+    Assert.assertEquals(hitCount + 1, AccountStoreTest.getCacheStats().hitCount());
+
+    // changes of the returned capsule don't leak into the cache
+    AccountStoreTest.get(key).setBalance(1);
+    Assert.assertEquals(100, AccountStoreTest.get(key).getBalance());
+
+    try (Dialog dialog = RevokingStore.getInstance().buildDialog()) {
+      accountCapsule.setBalance(200);
+      AccountStoreTest.put(key, accountCapsule);
+      Assert.assertEquals(200, AccountStoreTest.get(key).getBalance());
+    }
+    Assert.assertEquals(100, AccountStoreTest.get(key).getBalance());
+  }
+}
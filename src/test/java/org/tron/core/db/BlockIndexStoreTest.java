@@ -0,0 +1,76 @@
+package org.tron.core.db;
+
+import com.google.protobuf.ByteString;
+import java.io.File;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tron.common.utils.FileUtil;
+import org.tron.core.Constant;
+import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.config.args.Args;
+import org.tron.core.db.AbstractRevokingStore.Dialog;
+import org.tron.core.db.BlockIndexStore.BlockIndex;
+import org.tron.core.exception.RevokingStoreIllegalStateException;
+
+public class BlockIndexStoreTest {
+
+  private static String dbPath = "output_BlockIndexStore_test";
+  private static BlockIndexStore blockIndexStore;
+
+  @AfterClass
+  public static void destroy() {
+    Args.clearParam();
+    FileUtil.deleteDir(new File(dbPath));
+    BlockIndexStore.destroy();
+  }
+
+  @BeforeClass
+  public static void init() {
+    Args.setParam(new String[]{"-d", dbPath, "-w"}, Constant.TEST_CONF);
+    blockIndexStore = BlockIndexStore.create(dbPath);
+  }
+
+  @Test
+  public void putAndDelete() {
+    ByteString parentHash = ByteString.copyFrom(TransactionStoreTest.randomBytes(32));
+    ByteString witness = ByteString.copyFrom(TransactionStoreTest.randomBytes(21));
+    BlockCapsule block = new BlockCapsule(1000, parentHash, 123456, witness);
+    BlockCapsule fork = new BlockCapsule(1000, parentHash, 123457, witness);
+
+    blockIndexStore.put(block);
+    Assert.assertEquals(block.getBlockId(), blockIndexStore.getBlockId(1000));
+    Assert.assertTrue(blockIndexStore.hasBlock(block.getBlockId()));
+    Assert.assertFalse(blockIndexStore.hasBlock(fork.getBlockId()));
+
+    BlockIndex blockIndex = blockIndexStore.getBlockIndex(block.getBlockId());
+    Assert.assertEquals(1000, blockIndex.getNum());
+    Assert.assertEquals(block.getParentHash(), blockIndex.getParentHash());
+    Assert.assertEquals(123456, blockIndex.getTimestamp());
+    Assert.assertEquals(witness, blockIndex.getWitnessAddress());
+
+    // deleting a block which isn't the indexed one keeps the number mapping
+    blockIndexStore.delete(fork.getBlockId());
+    Assert.assertEquals(block.getBlockId(), blockIndexStore.getBlockId(1000));
+
+    blockIndexStore.delete(block.getBlockId());
+    Assert.assertNull(blockIndexStore.getBlockId(1000));
+    Assert.assertNull(blockIndexStore.getBlockIndex(block.getBlockId()));
+  }
+
+  @Test
+  public void headerCacheRevoked() throws RevokingStoreIllegalStateException {
+    BlockCapsule block = new BlockCapsule(2000,
+        ByteString.copyFrom(TransactionStoreTest.randomBytes(32)), 123456,
+        ByteString.copyFrom(TransactionStoreTest.randomBytes(21)));
+
+    try (Dialog dialog = RevokingStore.getInstance().buildDialog(true)) {
+      blockIndexStore.put(block);
+      Assert.assertSame(blockIndexStore.getBlockIndex(block.getBlockId()),
+          blockIndexStore.getBlockIndex(block.getBlockId()));
+    }
+    Assert.assertFalse(blockIndexStore.hasBlock(block.getBlockId()));
+    Assert.assertNull(blockIndexStore.getBlockIndex(block.getBlockId()));
+  }
+}
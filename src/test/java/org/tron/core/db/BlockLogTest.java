@@ -0,0 +1,91 @@
+package org.tron.core.db;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tron.common.utils.FileUtil;
+
+public class BlockLogTest {
+
+  private static final String dbPath = "output_BlockLog_test";
+  private static final int SEGMENT_SIZE = 64;
+
+  @After
+  public void destroy() {
+    FileUtil.deleteDir(new File(dbPath));
+  }
+
+  private static byte[] block(long num) {
+    byte[] data = new byte[20];
+    data[0] = (byte) num;
+    return data;
+  }
+
+  @Test
+  public void appendAndReopen() {
+    BlockLog blockLog = new BlockLog(new File(dbPath), SEGMENT_SIZE);
+    blockLog.open();
+    Assert.assertTrue(blockLog.isEmpty());
+
+    // two records per segment
+    for (long num = 5; num < 10; num++) {
+      blockLog.append(num, block(num));
+    }
+    Assert.assertEquals(5, blockLog.getFirstNum());
+    Assert.assertEquals(9, blockLog.getLastNum());
+    Assert.assertEquals(3, new File(dbPath).list().length);
+    Assert.assertArrayEquals(block(7), blockLog.get(7));
+    Assert.assertEquals(20, blockLog.getBuffer(9).remaining());
+    Assert.assertNull(blockLog.get(4));
+    Assert.assertNull(blockLog.get(10));
+    blockLog.close();
+
+    blockLog = new BlockLog(new File(dbPath), SEGMENT_SIZE);
+    blockLog.open();
+    Assert.assertEquals(5, blockLog.getFirstNum());
+    Assert.assertEquals(9, blockLog.getLastNum());
+    Assert.assertArrayEquals(block(8), blockLog.get(8));
+    blockLog.append(10, block(10));
+    Assert.assertArrayEquals(block(10), blockLog.get(10));
+    blockLog.close();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void appendOutOfOrder() {
+    BlockLog blockLog = new BlockLog(new File(dbPath), SEGMENT_SIZE);
+    blockLog.open();
+    try {
+      blockLog.append(1, block(1));
+      blockLog.append(3, block(3));
+    } finally {
+      blockLog.close();
+    }
+  }
+
+  @Test
+  public void dropTornRecord() throws IOException {
+    BlockLog blockLog = new BlockLog(new File(dbPath), SEGMENT_SIZE);
+    blockLog.open();
+    blockLog.append(0, block(0));
+    blockLog.append(1, block(1));
+    blockLog.close();
+
+    // corrupt the body of the second record
+    File segment = new File(dbPath).listFiles()[0];
+    try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+      file.seek(28 + 8 + 1);
+      file.write(0x7f);
+    }
+
+    blockLog = new BlockLog(new File(dbPath), SEGMENT_SIZE);
+    blockLog.open();
+    Assert.assertEquals(0, blockLog.getLastNum());
+    Assert.assertArrayEquals(block(0), blockLog.get(0));
+    blockLog.append(1, block(1));
+    Assert.assertArrayEquals(block(1), blockLog.get(1));
+    blockLog.close();
+  }
+}
@@ -0,0 +1,69 @@
+package org.tron.core.db;
+
+import com.google.protobuf.ByteString;
+import java.io.File;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tron.common.utils.FileUtil;
+import org.tron.core.Constant;
+import org.tron.core.config.args.Args;
+import org.tron.core.db.AbstractRevokingStore.Dialog;
+import org.tron.core.exception.RevokingStoreIllegalStateException;
+
+public class DynamicPropertiesStoreTest {
+
+  private static String dbPath = "output_DynamicPropertiesStore_test";
+  private static DynamicPropertiesStore dynamicPropertiesStore;
+
+  @AfterClass
+  public static void destroy() {
+    Args.clearParam();
+    FileUtil.deleteDir(new File(dbPath));
+  }
+
+  @BeforeClass
+  public static void init() {
+    Args.setParam(new String[]{"-d", dbPath, "-w"}, Constant.TEST_CONF);
+    dynamicPropertiesStore = DynamicPropertiesStore.create(dbPath);
+  }
+
+  @Test
+  public void latestBlockHeaderRevoked() throws RevokingStoreIllegalStateException {
+    long number = dynamicPropertiesStore.getLatestBlockHeaderNumber();
+    ByteString hash = ByteString.copyFrom(TransactionStoreTest.randomBytes(32));
+
+    // the store may be shared with other tests, leave it as it was
+    try (Dialog outer = RevokingStore.getInstance().buildDialog(true)) {
+      dynamicPropertiesStore.saveLatestBlockHeader(number + 10, 1000, hash);
+      Assert.assertEquals(number + 10, dynamicPropertiesStore.getLatestBlockHeaderNumber());
+      Assert.assertEquals(1000, dynamicPropertiesStore.getLatestBlockHeaderTimestamp());
+      Assert.assertEquals(hash, dynamicPropertiesStore.getLatestBlockHeaderHash());
+
+      try (Dialog inner = RevokingStore.getInstance().buildDialog()) {
+        dynamicPropertiesStore.saveLatestBlockHeaderNumber(number + 11);
+        Assert.assertEquals(number + 11, dynamicPropertiesStore.getLatestBlockHeaderNumber());
+        Assert.assertEquals(1000, dynamicPropertiesStore.getLatestBlockHeaderTimestamp());
+      }
+      Assert.assertEquals(number + 10, dynamicPropertiesStore.getLatestBlockHeaderNumber());
+      Assert.assertEquals(hash, dynamicPropertiesStore.getLatestBlockHeaderHash());
+    }
+    Assert.assertEquals(number, dynamicPropertiesStore.getLatestBlockHeaderNumber());
+  }
+
+  @Test
+  public void totalTransactionCountRevoked() throws RevokingStoreIllegalStateException {
+    long count = dynamicPropertiesStore.getTotalTransactionCount();
+
+    try (Dialog outer = RevokingStore.getInstance().buildDialog(true)) {
+      dynamicPropertiesStore.saveTotalTransactionCount(count + 1);
+      try (Dialog inner = RevokingStore.getInstance().buildDialog()) {
+        dynamicPropertiesStore.saveTotalTransactionCount(count + 2);
+        Assert.assertEquals(count + 2, dynamicPropertiesStore.getTotalTransactionCount());
+      }
+      Assert.assertEquals(count + 1, dynamicPropertiesStore.getTotalTransactionCount());
+    }
+    Assert.assertEquals(count, dynamicPropertiesStore.getTotalTransactionCount());
+  }
+}
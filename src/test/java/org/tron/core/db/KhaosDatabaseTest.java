@@ -2,6 +2,8 @@ package org.tron.core.db;
 
 import com.google.protobuf.ByteString;
 import java.io.File;
+import java.util.LinkedList;
+import javafx.util.Pair;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.AfterClass;
 import org.junit.Assert;
@@ -74,5 +76,82 @@ public class KhaosDatabaseTest {
     Assert.assertNull("removeBlk is error", khaosDatabase.getBlock(blockCapsule2.getBlockId()));
   }
 
+  private static BlockCapsule child(BlockCapsule parent, long when) {
+    return new BlockCapsule(parent.getNum() + 1, parent.getBlockId().getByteString(), when,
+        ByteString.EMPTY);
+  }
+
+  @Test
+  public void testSkipNum() {
+    for (long num = 1; num < 10000; num++) {
+      long skipNum = KhaosDatabase.getSkipNum(num);
+      Assert.assertTrue(skipNum < num);
+      Assert.assertTrue(skipNum >= 0);
+    }
+  }
+
+  @Test
+  public void testLinkUnlinkedAndBranch() throws UnLinkedBlockException {
+    KhaosDatabase khaos = new KhaosDatabase("test_khaos_branch");
+    BlockCapsule root = new BlockCapsule(100, ByteString.EMPTY, 0, ByteString.EMPTY);
+    khaos.start(root);
+
+    // main chain of 300 blocks, and a fork of 200 blocks from its 50th block
+    BlockCapsule main = root;
+    BlockCapsule forkPoint = null;
+    BlockCapsule latePoint = null;
+    for (int i = 0; i < 300; i++) {
+      main = child(main, 0);
+      khaos.push(main);
+      if (i == 49) {
+        forkPoint = main;
+      } else if (i == 199) {
+        latePoint = main;
+      }
+    }
+    BlockCapsule fork = forkPoint;
+    LinkedList<BlockCapsule> forkBlocks = new LinkedList<>();
+    for (int i = 0; i < 200; i++) {
+      fork = child(fork, 1);
+      forkBlocks.addFirst(fork);
+    }
+
+    // the fork arrives from its tip, it is linked when its first block arrives
+    for (int i = 0; i < forkBlocks.size() - 1; i++) {
+      try {
+        khaos.push(forkBlocks.get(i));
+        Assert.fail();
+      } catch (UnLinkedBlockException e) {
+        Assert.assertTrue(khaos.containBlock(forkBlocks.get(i).getBlockId()));
+      }
+    }
+    Assert.assertTrue(khaos.getUnlinkedSize() > 0);
+    Assert.assertEquals(main, khaos.push(forkBlocks.getLast()));
+    Assert.assertEquals(0, khaos.getUnlinkedSize());
 
-}
\ No newline at end of file
+    Pair<LinkedList<BlockCapsule>, LinkedList<BlockCapsule>> branch =
+        khaos.getBranch(main.getBlockId(), fork.getBlockId());
+    Assert.assertEquals(250, branch.getKey().size());
+    Assert.assertEquals(forkBlocks, branch.getValue());
+    Assert.assertEquals(forkPoint.getBlockId(), branch.getValue().getLast().getParentHash());
+
+    // only the blocks from the solidified one are kept
+    long size = khaos.getSize();
+    khaos.prune(forkPoint.getNum() + 10);
+    Assert.assertTrue(khaos.getSize() < size);
+    Assert.assertFalse(khaos.containBlock(forkPoint.getBlockId()));
+    Assert.assertTrue(khaos.getBranch(main.getBlockId(), fork.getBlockId()).getKey().isEmpty());
+    Assert.assertEquals(main, khaos.getHead());
+
+    // the blocks left still find their ancestors without the pruned ones
+    BlockCapsule lateFork = latePoint;
+    for (int i = 0; i < 5; i++) {
+      lateFork = child(lateFork, 2);
+      khaos.push(lateFork);
+    }
+    branch = khaos.getBranch(main.getBlockId(), lateFork.getBlockId());
+    Assert.assertEquals(100, branch.getKey().size());
+    Assert.assertEquals(5, branch.getValue().size());
+    Assert.assertEquals(latePoint.getBlockId(), branch.getValue().getLast().getParentHash());
+  }
+}
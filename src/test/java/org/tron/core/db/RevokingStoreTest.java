@@ -95,6 +95,28 @@ public class RevokingStoreTest {
     tronDatabase.close();
   }
 
+  @Test
+  public synchronized void testMaxSizeKeepsActiveDialogs() {
+    revokingDatabase.getStack().clear();
+    revokingDatabase.setMaxSize(0);
+    TestRevokingTronStore tronDatabase = new TestRevokingTronStore(
+        "testrevokingtronstore-testMaxSize", revokingDatabase);
+    TestProtoCapsule testProtoCapsule = new TestProtoCapsule();
+
+    try (Dialog outer = revokingDatabase.buildDialog()) {
+      tronDatabase.put(testProtoCapsule.getData(), testProtoCapsule);
+      try (Dialog inner = revokingDatabase.buildDialog()) {
+        Assert.assertEquals(revokingDatabase.getStack().size(), 2);
+      }
+    } catch (RevokingStoreIllegalStateException e) {
+      logger.debug(e.getMessage(), e);
+    }
+
+    Assert.assertTrue(tronDatabase.getDbSource().allKeys().isEmpty());
+    Assert.assertEquals(revokingDatabase.getActiveDialog(), 0);
+    tronDatabase.close();
+  }
+
   private static class TestProtoCapsule implements ProtoCapsule<Object> {
 
     @Override
@@ -0,0 +1,271 @@
+package org.tron.core.db;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tron.common.storage.leveldb.LevelDbDataSourceImpl;
+import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.DialogOptional;
+import org.tron.common.utils.FileUtil;
+import org.tron.core.Constant;
+import org.tron.core.capsule.ProtoCapsule;
+import org.tron.core.config.args.Args;
+import org.tron.core.db.AbstractRevokingStore.Dialog;
+import org.tron.core.exception.RevokingStoreIllegalStateException;
+
+@Slf4j
+public class SnapshotRevokingStoreTest {
+
+  private SnapshotRevokingStore revokingDatabase;
+
+  @Before
+  public void init() {
+    revokingDatabase = new SnapshotRevokingStore();
+    revokingDatabase.enable();
+    Args.setParam(new String[]{"-d", "output_snapshotRevokingStore_test"},
+        Constant.NORMAL_CONF);
+  }
+
+  @After
+  public void removeDb() {
+    Args.clearParam();
+    FileUtil.deleteDir(new File("output_snapshotRevokingStore_test"));
+  }
+
+  @Test
+  public synchronized void testUndo() {
+    TestRevokingTronStore tronDatabase = new TestRevokingTronStore(
+        "testsnapshotrevokingstore-testUndo", revokingDatabase);
+
+    DialogOptional dialog = DialogOptional.of(revokingDatabase.buildDialog());
+    IntStream.range(0, 10).forEach(i -> {
+      try (Dialog tmpDialog = revokingDatabase.buildDialog()) {
+        TestProtoCapsule testProtoCapsule = new TestProtoCapsule(i);
+        tronDatabase.put(testProtoCapsule.getData(), testProtoCapsule);
+        Assert.assertTrue(tronDatabase.has(testProtoCapsule.getData()));
+        Assert.assertTrue(tronDatabase.getDbSource().allKeys().isEmpty());
+        Assert.assertEquals(revokingDatabase.getStack().size(), 2);
+        tmpDialog.merge();
+        Assert.assertEquals(revokingDatabase.getStack().size(), 1);
+      } catch (RevokingStoreIllegalStateException e) {
+        logger.debug(e.getMessage(), e);
+      }
+    });
+
+    Assert.assertEquals(revokingDatabase.getStack().size(), 1);
+    Assert.assertEquals(10, tronDatabase.getTotal());
+
+    dialog.reset();
+
+    Assert.assertTrue(revokingDatabase.getStack().isEmpty());
+    Assert.assertTrue(tronDatabase.isEmpty());
+    Assert.assertEquals(revokingDatabase.getActiveDialog(), 0);
+    tronDatabase.close();
+  }
+
+  @Test
+  public synchronized void testPopAndFlush() {
+    TestRevokingTronStore tronDatabase = new TestRevokingTronStore(
+        "testsnapshotrevokingstore-testPop", revokingDatabase);
+
+    IntStream.rangeClosed(1, 10).forEach(i -> {
+      try (Dialog tmpDialog = revokingDatabase.buildDialog()) {
+        TestProtoCapsule testProtoCapsule = new TestProtoCapsule(i);
+        tronDatabase.put(testProtoCapsule.getData(), testProtoCapsule);
+        Assert.assertEquals(revokingDatabase.getActiveDialog(), 1);
+        tmpDialog.commit();
+        Assert.assertEquals(revokingDatabase.getStack().size(), i);
+        Assert.assertEquals(revokingDatabase.getActiveDialog(), 0);
+      } catch (RevokingStoreIllegalStateException e) {
+        logger.debug(e.getMessage(), e);
+      }
+    });
+
+    try {
+      revokingDatabase.pop();
+    } catch (RevokingStoreIllegalStateException e) {
+      logger.debug(e.getMessage(), e);
+    }
+
+    Assert.assertFalse(tronDatabase.has(new TestProtoCapsule(10).getData()));
+    Assert.assertEquals(revokingDatabase.getStack().size(), 9);
+    Assert.assertEquals(9, tronDatabase.getTotal());
+
+    revokingDatabase.setMaxSize(2);
+    revokingDatabase.buildDialog().destroy();
+    Assert.assertEquals(revokingDatabase.getStack().size(), 2);
+    Assert.assertEquals(7, tronDatabase.getDbSource().allKeys().size());
+
+    revokingDatabase.flush();
+    Assert.assertTrue(revokingDatabase.getStack().isEmpty());
+    Assert.assertEquals(9, tronDatabase.getDbSource().allKeys().size());
+    Assert.assertEquals(10, revokingDatabase.getWriteCount());
+    Assert.assertEquals(9, revokingDatabase.getFlushedRowCount());
+    Assert.assertEquals(2, revokingDatabase.getFlushedBatchCount());
+    tronDatabase.close();
+  }
+
+  @Test
+  public synchronized void testStream() {
+    TestRevokingTronStore tronDatabase = new TestRevokingTronStore(
+        "testsnapshotrevokingstore-testStream", revokingDatabase);
+    IntStream.of(1, 3, 5, 7).forEach(i -> tronDatabase.put(ByteArray.fromInt(i),
+        new TestProtoCapsule(i)));
+
+    try (Dialog dialog = revokingDatabase.buildDialog()) {
+      tronDatabase.put(ByteArray.fromInt(2), new TestProtoCapsule(2));
+      tronDatabase.delete(ByteArray.fromInt(3));
+      tronDatabase.put(ByteArray.fromInt(5), new TestProtoCapsule(50));
+
+      try (Stream<Entry<byte[], byte[]>> entries = tronDatabase
+          .stream(ByteArray.fromInt(2), ByteArray.fromInt(7))) {
+        Assert.assertEquals(Arrays.asList(2, 50), entries
+            .map(entry -> ByteArray.toInt(entry.getValue()))
+            .collect(Collectors.toList()));
+      }
+      Assert.assertEquals(4, tronDatabase.getDbSource().allKeys().size());
+    } catch (RevokingStoreIllegalStateException e) {
+      logger.debug(e.getMessage(), e);
+    }
+
+    try (Stream<Entry<byte[], byte[]>> entries = tronDatabase.stream(null, null)) {
+      Assert.assertEquals(Arrays.asList(1, 3, 5, 7), entries
+          .map(entry -> ByteArray.toInt(entry.getKey()))
+          .collect(Collectors.toList()));
+    }
+    tronDatabase.close();
+  }
+
+  @Test
+  public synchronized void testDisabledWritesThrough() {
+    TestRevokingTronStore tronDatabase = new TestRevokingTronStore(
+        "testsnapshotrevokingstore-testDisabled", revokingDatabase);
+
+    try (Dialog dialog = revokingDatabase.buildDialog()) {
+      tronDatabase.put(ByteArray.fromInt(1), new TestProtoCapsule(10));
+      revokingDatabase.disable();
+      tronDatabase.put(ByteArray.fromInt(1), new TestProtoCapsule(11));
+      tronDatabase.put(ByteArray.fromInt(2), new TestProtoCapsule(2));
+      revokingDatabase.enable();
+
+      Assert.assertEquals(2, tronDatabase.getDbSource().allKeys().size());
+      Assert.assertArrayEquals(ByteArray.fromInt(11),
+          revokingDatabase.getData(tronDatabase.getDbSource(), ByteArray.fromInt(1)));
+    } catch (RevokingStoreIllegalStateException e) {
+      logger.debug(e.getMessage(), e);
+    }
+
+    // the dialog is revoked, the writes made while disabled stay
+    Assert.assertTrue(tronDatabase.has(ByteArray.fromInt(1)));
+    Assert.assertTrue(tronDatabase.has(ByteArray.fromInt(2)));
+    tronDatabase.close();
+  }
+
+  @Test
+  public synchronized void testPurge() throws RevokingStoreIllegalStateException {
+    TestRevokingTronStore tronDatabase = new TestRevokingTronStore(
+        "testsnapshotrevokingstore-testPurge", revokingDatabase);
+    tronDatabase.getDbSource().putData(ByteArray.fromInt(1), ByteArray.fromInt(1));
+
+    try (Dialog dialog = revokingDatabase.buildDialog()) {
+      tronDatabase.put(ByteArray.fromInt(1), new TestProtoCapsule(10));
+      tronDatabase.put(ByteArray.fromInt(2), new TestProtoCapsule(2));
+      dialog.commit();
+    }
+    try (Dialog dialog = revokingDatabase.buildDialog()) {
+      tronDatabase.purge(ByteArray.fromInt(1));
+      tronDatabase.purge(ByteArray.fromInt(2));
+    }
+    revokingDatabase.pop();
+
+    // neither the revoke nor the pop brings the purged keys back
+    Assert.assertFalse(tronDatabase.has(ByteArray.fromInt(1)));
+    Assert.assertFalse(tronDatabase.has(ByteArray.fromInt(2)));
+    Assert.assertTrue(tronDatabase.getDbSource().allKeys().isEmpty());
+    tronDatabase.close();
+  }
+
+  @Test
+  public void testJournalRecover() {
+    SnapshotJournal journal = new SnapshotJournal("testsnapshotrevokingstore-journal");
+    SnapshotRevokingStore journaled = new SnapshotRevokingStore(journal);
+    journaled.enable();
+    TestRevokingTronStore tronDatabase = new TestRevokingTronStore(
+        "testsnapshotrevokingstore-recover", journaled);
+    try (Dialog tmpDialog = journaled.buildDialog()) {
+      TestProtoCapsule testProtoCapsule = new TestProtoCapsule(1);
+      tronDatabase.put(testProtoCapsule.getData(), testProtoCapsule);
+      tmpDialog.commit();
+    } catch (RevokingStoreIllegalStateException e) {
+      logger.debug(e.getMessage(), e);
+    }
+    journaled.flush();
+
+    LevelDbDataSourceImpl database = tronDatabase.getDbSource();
+    Assert.assertArrayEquals(ByteArray.fromLong(1),
+        database.getData(LevelDbDataSourceImpl.SEQUENCE_KEY));
+    Assert.assertEquals(1, database.allKeys().size());
+    Assert.assertEquals(1, database.getTotal());
+    tronDatabase.close();
+    journal.recover();
+
+    // the second flush only reaches the database after the check
+    journal.write(Arrays.asList("testsnapshotrevokingstore-recover"));
+    try {
+      journal.recover();
+      Assert.fail("the torn flush was recovered");
+    } catch (IllegalStateException e) {
+      logger.debug(e.getMessage(), e);
+    }
+
+    database.initDB();
+    database.putData(LevelDbDataSourceImpl.SEQUENCE_KEY, ByteArray.fromLong(2));
+    database.closeDB();
+    journal.recover();
+    journal.recover();
+  }
+
+  private static class TestProtoCapsule implements ProtoCapsule<Object> {
+
+    private int value;
+
+    TestProtoCapsule(int value) {
+      this.value = value;
+    }
+
+    @Override
+    public byte[] getData() {
+      return ByteArray.fromInt(value);
+    }
+
+    @Override
+    public Object getInstance() {
+      return null;
+    }
+  }
+
+  private static class TestRevokingTronStore extends TronStoreWithRevoking<TestProtoCapsule> {
+
+    protected TestRevokingTronStore(String dbName, RevokingDatabase revokingDatabase) {
+      super(dbName, revokingDatabase);
+    }
+
+    @Override
+    public TestProtoCapsule get(byte[] key) {
+      return null;
+    }
+
+    @Override
+    public boolean has(byte[] key) {
+      return getValue(key) != null;
+    }
+  }
+}
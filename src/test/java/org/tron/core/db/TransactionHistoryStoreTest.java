@@ -0,0 +1,78 @@
+package org.tron.core.db;
+
+import com.google.protobuf.ByteString;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tron.common.utils.FileUtil;
+import org.tron.core.Constant;
+import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.capsule.TransactionCapsule;
+import org.tron.core.config.args.Args;
+import org.tron.core.db.AbstractRevokingStore.Dialog;
+import org.tron.core.exception.RevokingStoreIllegalStateException;
+import org.tron.protos.Contract.TransferAssetContract;
+
+public class TransactionHistoryStoreTest {
+
+  private static String dbPath = "output_TransactionHistoryStore_test";
+  private static TransactionHistoryStore transactionHistoryStore;
+
+  @AfterClass
+  public static void destroy() {
+    Args.clearParam();
+    FileUtil.deleteDir(new File(dbPath));
+    TransactionHistoryStore.destroy();
+  }
+
+  @BeforeClass
+  public static void init() {
+    Args.setParam(new String[]{"-d", dbPath, "-w"}, Constant.TEST_CONF);
+    transactionHistoryStore = TransactionHistoryStore.create(dbPath);
+  }
+
+  private static TransactionCapsule transfer(byte[] owner, byte[] to, long amount) {
+    return new TransactionCapsule(TransferAssetContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(owner))
+        .setToAddress(ByteString.copyFrom(to))
+        .setAmount(amount)
+        .build());
+  }
+
+  @Test
+  public void historyRevoked() throws RevokingStoreIllegalStateException {
+    byte[] alice = TransactionStoreTest.randomBytes(21);
+    byte[] bob = TransactionStoreTest.randomBytes(21);
+    byte[] carol = TransactionStoreTest.randomBytes(21);
+
+    BlockCapsule block1 = new BlockCapsule(1, ByteString.EMPTY, 0, ByteString.EMPTY);
+    TransactionCapsule trx1 = transfer(alice, bob, 1);
+    TransactionCapsule trx2 = transfer(bob, carol, 2);
+    block1.addTransaction(trx1);
+    block1.addTransaction(trx2);
+    BlockCapsule block2 = new BlockCapsule(2, ByteString.EMPTY, 0, ByteString.EMPTY);
+    TransactionCapsule trx3 = transfer(alice, alice, 3);
+    block2.addTransaction(trx3);
+
+    try (Dialog dialog = RevokingStore.getInstance().buildDialog(true)) {
+      transactionHistoryStore.put(block1);
+      transactionHistoryStore.put(block2);
+
+      Assert.assertEquals(Arrays.asList(trx1.getTransactionId(), trx3.getTransactionId()),
+          transactionHistoryStore.getTransactionIds(alice, 0, 10));
+      Assert.assertEquals(Arrays.asList(trx1.getTransactionId(), trx2.getTransactionId()),
+          transactionHistoryStore.getTransactionIds(bob, 0, 10));
+      Assert.assertEquals(Collections.singletonList(trx2.getTransactionId()),
+          transactionHistoryStore.getTransactionIds(carol, 0, 10));
+      Assert.assertEquals(Collections.singletonList(trx3.getTransactionId()),
+          transactionHistoryStore.getTransactionIds(alice, 1, 10));
+      Assert.assertEquals(Collections.singletonList(trx1.getTransactionId()),
+          transactionHistoryStore.getTransactionIds(alice, 0, 1));
+    }
+    Assert.assertTrue(transactionHistoryStore.getTransactionIds(alice, 0, 10).isEmpty());
+  }
+}
@@ -0,0 +1,120 @@
+package org.tron.core.db;
+
+import com.google.protobuf.ByteString;
+import java.util.Arrays;
+import java.util.Collections;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tron.common.utils.ByteArray;
+import org.tron.core.capsule.TransactionCapsule;
+import org.tron.protos.Contract.VoteWitnessContract;
+import org.tron.protos.Contract.VoteWitnessContract.Vote;
+
+@Slf4j
+public class TransactionPoolTest {
+
+  private static final ByteString OWNER = ByteString.copyFrom(ByteArray
+      .fromHexString("a0548794500882809695a8a687866e76d4271a1abc"));
+  private static final ByteString OTHER_OWNER = ByteString.copyFrom(ByteArray
+      .fromHexString("a0abd4b9367799eaa3197fecb144eb71de1e049abc"));
+
+  private static TransactionCapsule newTransaction(ByteString owner, long voteCount) {
+    return new TransactionCapsule(VoteWitnessContract.newBuilder()
+        .setOwnerAddress(owner)
+        .addVotes(Vote.newBuilder().setVoteAddress(owner).setVoteCount(voteCount))
+        .build());
+  }
+
+  @Test
+  public void testAddAndRemove() {
+    TransactionPool pool = new TransactionPool();
+    TransactionCapsule first = newTransaction(OWNER, 1);
+    TransactionCapsule second = newTransaction(OTHER_OWNER, 1);
+    TransactionCapsule third = newTransaction(OWNER, 2);
+
+    Assert.assertTrue(pool.add(first));
+    Assert.assertTrue(pool.add(second));
+    Assert.assertTrue(pool.add(third));
+    Assert.assertFalse(pool.add(newTransaction(OWNER, 1)));
+    Assert.assertEquals(3, pool.size());
+    Assert.assertEquals(Arrays.asList(first, second, third),
+        Arrays.asList(pool.getTransactions().toArray()));
+    Assert.assertEquals(Arrays.asList(first, third), pool.getBySender(OWNER));
+
+    pool.removeAll(Arrays.asList(first, second));
+    Assert.assertEquals(1, pool.size());
+    Assert.assertFalse(pool.contains(first.getTransactionId()));
+    Assert.assertTrue(pool.contains(third.getTransactionId()));
+    Assert.assertEquals(Arrays.asList(third), pool.getBySender(OWNER));
+    Assert.assertTrue(pool.getBySender(OTHER_OWNER).isEmpty());
+
+    Assert.assertNull(pool.remove(first.getTransactionId()));
+    pool.remove(third.getTransactionId());
+    Assert.assertTrue(pool.isEmpty());
+  }
+
+  @Test
+  public void testPrioritized() {
+    TransactionPool pool = new TransactionPool();
+    TransactionCapsule cheap = newTransaction(OTHER_OWNER, 1);
+    TransactionCapsule first = newTransaction(OWNER, 1);
+    TransactionCapsule second = newTransaction(OWNER, 2);
+    TransactionCapsule rich = newTransaction(OTHER_OWNER, 2);
+
+    pool.add(cheap, 1);
+    pool.add(first, 0);
+    pool.add(second, 10);
+    pool.add(rich, 5);
+
+    // the fee of second can't jump ahead of the earlier transaction of the same sender
+    Assert.assertEquals(Arrays.asList(cheap, rich, first, second), pool.getPrioritized());
+
+    pool.remove(cheap.getTransactionId());
+    Assert.assertEquals(Arrays.asList(rich, first, second), pool.getPrioritized());
+  }
+
+  @Test
+  public void testTakeUnapplied() {
+    TransactionPool pool = new TransactionPool();
+    TransactionCapsule first = newTransaction(OWNER, 1);
+    TransactionCapsule second = newTransaction(OTHER_OWNER, 1);
+    TransactionCapsule third = newTransaction(OWNER, 2);
+    pool.add(first);
+    pool.add(second);
+    pool.add(third);
+
+    // everything added was applied
+    Assert.assertTrue(pool.takeUnapplied(Arrays.asList(OWNER, OTHER_OWNER)).isEmpty());
+
+    pool.markUnapplied();
+    Assert.assertEquals(Arrays.asList(first, third),
+        pool.takeUnapplied(Collections.singleton(OWNER)));
+    Assert.assertTrue(pool.takeUnapplied(Collections.singleton(OWNER)).isEmpty());
+    Assert.assertEquals(Arrays.asList(second),
+        pool.takeUnapplied(Arrays.asList(OWNER, OTHER_OWNER)));
+  }
+
+  @Test
+  public void testMaxSize() {
+    TransactionPool pool = new TransactionPool(2);
+    TransactionCapsule cheap = newTransaction(OWNER, 1);
+    TransactionCapsule rich = newTransaction(OTHER_OWNER, 1);
+    TransactionCapsule richer = newTransaction(OWNER, 2);
+
+    Assert.assertTrue(pool.add(cheap, 1));
+    Assert.assertTrue(pool.add(rich, 5));
+    // full of transactions paying at least as much
+    Assert.assertFalse(pool.canAdd(1));
+    Assert.assertFalse(pool.add(newTransaction(OTHER_OWNER, 2), 1));
+    Assert.assertEquals(2, pool.size());
+
+    // a higher fee evicts the transaction of lowest priority
+    Assert.assertTrue(pool.canAdd(10));
+    Assert.assertTrue(pool.add(richer, 10));
+    Assert.assertEquals(2, pool.size());
+    Assert.assertFalse(pool.contains(cheap.getTransactionId()));
+    Assert.assertEquals(Arrays.asList(richer), pool.getBySender(OWNER));
+    Assert.assertEquals(Arrays.asList(richer, rich), pool.getPrioritized());
+  }
+}
@@ -0,0 +1,80 @@
+package org.tron.core.db;
+
+import com.google.protobuf.ByteString;
+import java.io.File;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tron.common.crypto.ECKey;
+import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.FileUtil;
+import org.tron.core.Constant;
+import org.tron.core.SpendableOutputs;
+import org.tron.core.config.args.Args;
+import org.tron.protos.Protocol.TXOutput;
+import org.tron.protos.Protocol.TXOutputs;
+
+public class UtxoStoreTest {
+
+  private static String dbPath = "output_UtxoStore_test";
+  private static UtxoStore utxoStore;
+
+  @AfterClass
+  public static void destroy() {
+    Args.clearParam();
+    FileUtil.deleteDir(new File(dbPath));
+  }
+
+  @BeforeClass
+  public static void init() {
+    Args.setParam(new String[]{"-d", dbPath, "-w"}, Constant.TEST_CONF);
+    utxoStore = UtxoStore.create("utxo");
+  }
+
+  private static TXOutputs outputs(byte[] pubKeyHash, byte[] other, long... values) {
+    TXOutputs.Builder builder = TXOutputs.newBuilder();
+    for (int i = 0; i < values.length; i++) {
+      builder.addOutputs(TXOutput.newBuilder()
+          .setValue(values[i])
+          .setPubKeyHash(ByteString.copyFrom(i % 2 == 0 ? pubKeyHash : other)));
+    }
+    return builder.build();
+  }
+
+  @Test
+  public void findByAddress() {
+    byte[] pubKey = new ECKey().getPubKey();
+    byte[] pubKeyHash = ECKey.computeAddress(pubKey);
+    byte[] other = ECKey.computeAddress(new ECKey().getPubKey());
+    byte[] key1 = TransactionStoreTest.randomBytes(32);
+    byte[] key2 = TransactionStoreTest.randomBytes(32);
+
+    // outputs 0 and 2 belong to the address
+    utxoStore.saveUtxo(key1, outputs(pubKeyHash, other, 10, 20, 30).toByteArray());
+    utxoStore.saveUtxo(key2, outputs(pubKeyHash, other, 40).toByteArray());
+    Assert.assertEquals(80,
+        utxoStore.findUtxo(pubKey).stream().mapToLong(TXOutput::getValue).sum());
+    Assert.assertTrue(utxoStore.findUtxo(new ECKey().getPubKey()).isEmpty());
+
+    SpendableOutputs all = utxoStore.findSpendableOutputs(pubKey, 1000);
+    Assert.assertEquals(80, all.getAmount());
+    Assert.assertArrayEquals(new long[]{0, 2},
+        all.getUnspentOutputs().get(ByteArray.toHexString(key1)));
+    Assert.assertArrayEquals(new long[]{0},
+        all.getUnspentOutputs().get(ByteArray.toHexString(key2)));
+
+    // stops as soon as the amount is reached
+    SpendableOutputs some = utxoStore.findSpendableOutputs(pubKey, 5);
+    Assert.assertEquals(1, some.getUnspentOutputs().size());
+    Assert.assertTrue(some.getAmount() >= 5);
+
+    // spent outputs leave the index
+    utxoStore.saveUtxo(key1, outputs(pubKeyHash, other, 10).toByteArray());
+    utxoStore.saveUtxo(key2, TXOutputs.getDefaultInstance().toByteArray());
+    Assert.assertEquals(1, utxoStore.findUtxo(pubKey).size());
+    Assert.assertEquals(10, utxoStore.findSpendableOutputs(pubKey, 1000).getAmount());
+    utxoStore.saveUtxo(key1, TXOutputs.getDefaultInstance().toByteArray());
+    Assert.assertTrue(utxoStore.findUtxo(pubKey).isEmpty());
+  }
+}
@@ -0,0 +1,118 @@
+package org.tron.core.net.node;
+
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.capsule.BlockCapsule.BlockId;
+import org.tron.core.config.Parameter.NetConstants;
+import org.tron.core.config.Parameter.NodeConstant;
+import org.tron.core.net.message.BlockMessage;
+import org.tron.core.net.peer.PeerConnection;
+
+public class SyncBlockSchedulerTest {
+
+  private List<BlockMessage> blocks = new ArrayList<>();
+
+  @Before
+  public void init() {
+    ByteString parentHash = ByteString.copyFrom(new byte[32]);
+    ByteString witness = ByteString.copyFrom(new byte[21]);
+    for (long num = 1; num <= 30; num++) {
+      BlockCapsule block = new BlockCapsule(num, parentHash, num, witness);
+      blocks.add(new BlockMessage(block));
+      parentHash = block.getBlockId().getByteString();
+    }
+  }
+
+  private PeerConnection peer() {
+    PeerConnection peer = new PeerConnection();
+    peer.setNeedSyncFromPeer(true);
+    blocks.forEach(block -> peer.getSyncBlockToFetch().add(block.getBlockId()));
+    return peer;
+  }
+
+  private BlockId id(int num) {
+    return blocks.get(num - 1).getBlockId();
+  }
+
+  @Test
+  public void spreadAndReorder() throws InterruptedException {
+    SyncBlockScheduler scheduler = new SyncBlockScheduler();
+    PeerConnection first = peer();
+    PeerConnection second = peer();
+    List<PeerConnection> peers = Arrays.asList(first, second);
+
+    // new peers get the smallest window, in consecutive ranges
+    Map<PeerConnection, List<BlockId>> send = scheduler.schedule(peers, 0);
+    int window = NodeConstant.SYNC_FETCH_MIN_PER_PEER;
+    Assert.assertEquals(2, send.size());
+    Assert.assertEquals(2 * window, scheduler.getRequestedNum());
+    Assert.assertEquals(window, first.getSyncBlockRequested().size());
+    Assert.assertEquals(window, second.getSyncBlockRequested().size());
+    PeerConnection owner = send.get(first).contains(id(1)) ? first : second;
+    PeerConnection other = owner == first ? second : first;
+    Assert.assertEquals(id(window + 1), send.get(other).get(0));
+
+    // the windows are full
+    Assert.assertTrue(scheduler.schedule(peers, 0).isEmpty());
+
+    Assert.assertFalse(scheduler.onBlock(owner, blocks.get(window), 10));
+    Assert.assertTrue(scheduler.onBlock(other, blocks.get(window), 10));
+    Assert.assertNull(scheduler.takeNext(peers, 1));
+
+    Assert.assertTrue(scheduler.onBlock(owner, blocks.get(0), 10));
+    Assert.assertEquals(blocks.get(0), scheduler.takeNext(peers, 1));
+    Assert.assertEquals(id(2), first.getSyncBlockToFetch().peek());
+    Assert.assertEquals(id(2), second.getSyncBlockToFetch().peek());
+    Assert.assertTrue(first.getBlockInProc().contains(id(1)));
+    Assert.assertTrue(second.getBlockInProc().contains(id(1)));
+    Assert.assertEquals(1, scheduler.getReceivedNum());
+  }
+
+  @Test
+  public void reassignTimedOut() {
+    SyncBlockScheduler scheduler = new SyncBlockScheduler();
+    PeerConnection gone = peer();
+    PeerConnection slow = peer();
+    scheduler.schedule(Arrays.asList(gone, slow), 0);
+    Assert.assertEquals(id(NodeConstant.SYNC_FETCH_MIN_PER_PEER + 1),
+        slow.getSyncBlockRequested().keySet().stream()
+            .min((a, b) -> Long.compare(a.getNum(), b.getNum())).get());
+
+    PeerConnection fresh = peer();
+    Map<PeerConnection, List<BlockId>> send = scheduler
+        .schedule(Arrays.asList(slow, fresh), NetConstants.SYNC_TIME_OUT + 1);
+    Assert.assertTrue(gone.getSyncBlockRequested().isEmpty());
+    // the new peer is faster than the timed out one, so it gets the head of the chain
+    Assert.assertEquals(id(1), send.get(fresh).get(0));
+    Assert.assertEquals(NodeConstant.SYNC_FETCH_MIN_PER_PEER, send.get(fresh).size());
+    Assert.assertEquals(id(NodeConstant.SYNC_FETCH_MIN_PER_PEER + 1), send.get(slow).get(0));
+  }
+
+  @Test
+  public void stopAfterTimeouts() {
+    SyncBlockScheduler scheduler = new SyncBlockScheduler();
+    PeerConnection dead = peer();
+    List<PeerConnection> peers = Arrays.asList(dead);
+
+    long now = 0;
+    for (int i = 0; i < NetConstants.SYNC_TIME_OUT_MAX_COUNT; i++) {
+      Assert.assertFalse(scheduler.isStalled(dead));
+      Assert.assertEquals(NodeConstant.SYNC_FETCH_MIN_PER_PEER,
+          scheduler.schedule(peers, now).get(dead).size());
+      now += NetConstants.SYNC_TIME_OUT + 1;
+    }
+
+    // still connected, but timed out every time
+    Assert.assertTrue(scheduler.schedule(peers, now).isEmpty());
+    Assert.assertTrue(scheduler.isStalled(dead));
+    Assert.assertTrue(dead.getSyncBlockRequested().isEmpty());
+    Assert.assertEquals(0, scheduler.getRequestedNum());
+  }
+}